@@ -4,6 +4,7 @@ import android.os.Bundle;
 
 import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
+import com.robovm.robomission.FramePacer;
 import com.robovm.robomission.RoboMission;
 
 public class AndroidLauncher extends AndroidApplication {
@@ -11,6 +12,6 @@ public class AndroidLauncher extends AndroidApplication {
 	protected void onCreate (Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		AndroidApplicationConfiguration config = new AndroidApplicationConfiguration();
-		initialize(new RoboMission(), config);
+		initialize(new RoboMission(new FramePacer()), config);
 	}
 }
@@ -0,0 +1,134 @@
+package com.robovm.robomission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.IntArray;
+import com.robovm.robomission.headless.AltitudeBoostPolicy;
+import com.robovm.robomission.headless.EpisodeStats;
+import com.robovm.robomission.headless.WorldDriver;
+
+/**
+ * Measures a collision pass of Robo against the obstacles
+ * and the fuel cell, either testing every object or only
+ * the candidates returned by the {@link SpatialGrid} broad
+ * phase, the way {@link World} performs it every tick.
+ * The swept benchmarks compare the narrow phase against
+ * the obstacles' rotated boxes with the fixed axis aligned
+ * boxes used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+    @Param({"5", "50", "500"})
+    public int obstacles;
+
+    private World world;
+    private final Rectangle startBounds = new Rectangle();
+    private final Rectangle fixedBounds = new Rectangle();
+
+    @Setup
+    public void setup() {
+        WorldDriver driver = new WorldDriver(new AltitudeBoostPolicy(10), new EpisodeStats(), obstacles);
+        // get into the playing state
+        driver.step(2);
+        world = driver.getWorld();
+    }
+
+    @Benchmark
+    public Rectangle roboBounds() {
+        return world.getRoboBounds();
+    }
+
+    @Benchmark
+    public Rectangle obstacleBounds() {
+        return world.getObstacleBounds(0);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int hits = 0;
+        Rectangle roboBounds = world.getRoboBounds();
+        for (int i = 0; i < world.getObstacles().size(); i++) {
+            if (roboBounds.overlaps(world.getObstacleBounds(i))) {
+                hits++;
+            }
+        }
+        if (roboBounds.overlaps(world.getFuelBounds(world.getFuel()))) {
+            hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int broadPhase() {
+        int hits = 0;
+        Rectangle roboBounds = world.getRoboBounds();
+        IntArray candidates = world.findCollisionCandidates(roboBounds);
+        for (int i = 0; i < candidates.size; i++) {
+            int handle = candidates.get(i);
+            Rectangle bounds = SpatialGrid.kind(handle) == SpatialGrid.OBSTACLE ?
+                    world.getObstacleBounds(SpatialGrid.index(handle)) :
+                    world.getFuelBounds(world.getFuel());
+            if (roboBounds.overlaps(bounds)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * The narrow phase before obstacles had rotated boxes: a
+     * swept test against a fixed, shrunken axis aligned box
+     */
+    @Benchmark
+    public float sweptFixedBox() {
+        world.getObstacles().rotateAll(0.3f);
+        Rectangle roboBounds = sweep();
+        IntArray candidates = world.findCollisionCandidates(roboBounds);
+        float impact = SweptCollision.NO_IMPACT;
+        ObstacleStore obstacles = world.getObstacles();
+        for (int i = 0; i < candidates.size; i++) {
+            int handle = candidates.get(i);
+            if (SpatialGrid.kind(handle) != SpatialGrid.OBSTACLE) continue;
+            int index = SpatialGrid.index(handle);
+            fixedBounds.set(obstacles.getX(index) + 15, obstacles.getY(index) + 20, World.OBSTACLE_WIDTH - 30, World.OBSTACLE_HEIGHT - 40);
+            impact = Math.min(impact, SweptCollision.timeOfImpact(startBounds, 3, -4, fixedBounds));
+        }
+        return impact;
+    }
+
+    /**
+     * The narrow phase {@link World} performs every tick: a
+     * swept test against each obstacle's rotated box, which
+     * has to be updated as the obstacles spin
+     */
+    @Benchmark
+    public float sweptRotatedBox() {
+        world.getObstacles().rotateAll(0.3f);
+        Rectangle roboBounds = sweep();
+        IntArray candidates = world.findCollisionCandidates(roboBounds);
+        float impact = SweptCollision.NO_IMPACT;
+        for (int i = 0; i < candidates.size; i++) {
+            int handle = candidates.get(i);
+            if (SpatialGrid.kind(handle) != SpatialGrid.OBSTACLE) continue;
+            impact = Math.min(impact, SweptCollision.timeOfImpact(startBounds, 3, -4, world.getObstacleBox(SpatialGrid.index(handle))));
+        }
+        return impact;
+    }
+
+    /**
+     * @return Robo's bounds swept over a typical tick, starting at {@link #startBounds}
+     */
+    private Rectangle sweep() {
+        Rectangle roboBounds = world.getRoboBounds();
+        startBounds.set(roboBounds.x - 3, roboBounds.y + 4, roboBounds.width, roboBounds.height);
+        return roboBounds.merge(startBounds);
+    }
+}
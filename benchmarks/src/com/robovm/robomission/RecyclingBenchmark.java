@@ -0,0 +1,37 @@
+package com.robovm.robomission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.robovm.robomission.headless.AltitudeBoostPolicy;
+import com.robovm.robomission.headless.EpisodeStats;
+import com.robovm.robomission.headless.WorldDriver;
+
+/**
+ * Measures recycling an off-screen obstacle to the
+ * right side of the screen via {@link World#reposition(int)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RecyclingBenchmark {
+    private World world;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        world = new WorldDriver(new AltitudeBoostPolicy(10), new EpisodeStats()).getWorld();
+        next = 0;
+    }
+
+    @Benchmark
+    public int reposition() {
+        world.reposition(next);
+        next = (next + 1) % world.getObstacles().size();
+        return next;
+    }
+}
@@ -0,0 +1,71 @@
+package com.robovm.robomission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.robovm.robomission.headless.AltitudeBoostPolicy;
+import com.robovm.robomission.headless.EpisodeStats;
+import com.robovm.robomission.headless.WorldDriver;
+
+/**
+ * Measures the CPU side of {@link Renderer#render(RenderState)},
+ * that is everything up to submitting vertices and draw calls.
+ * Runs on the headless backend with a {@link StubGL20}, so assets
+ * are decoded for real but no GPU is involved. Must be run with
+ * android/assets as the working directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RendererBenchmark {
+    // Obstacles off screen are culled, so render time
+    // should barely grow with their number
+    @Param({"5", "50", "500"})
+    public int obstacles;
+
+    private HeadlessApplication app;
+    private AssetManager assets;
+    private Renderer renderer;
+    private final RenderState frame = new RenderState();
+
+    @Setup
+    public void setup() {
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        app = new HeadlessApplication(new ApplicationAdapter() {}, config);
+        Gdx.gl = Gdx.gl20 = new StubGL20();
+
+        assets = new AssetManager();
+        Assets.queueCritical(assets);
+        Assets.queueDeferred(assets);
+        assets.finishLoading();
+
+        renderer = new Renderer(assets);
+        renderer.resize(800, 480);
+
+        // get into the playing state, so the full UI is drawn
+        WorldDriver driver = new WorldDriver(new AltitudeBoostPolicy(10), new EpisodeStats(), obstacles);
+        driver.step(2);
+        frame.capture(driver.getWorld(), false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        assets.dispose();
+        app.exit();
+    }
+
+    @Benchmark
+    public Renderer render() {
+        renderer.render(frame);
+        return renderer;
+    }
+}
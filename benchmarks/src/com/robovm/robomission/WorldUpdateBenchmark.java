@@ -0,0 +1,48 @@
+package com.robovm.robomission;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.robovm.robomission.headless.BoostPolicy;
+import com.robovm.robomission.headless.EpisodeStats;
+import com.robovm.robomission.headless.WorldDriver;
+
+/**
+ * Measures a single simulation tick of the {@link World}
+ * with a varying number of obstacles, stored either as
+ * objects or packed into arrays. Robo is kept alive
+ * by a constant cost policy, so the policy itself does not
+ * scale with the obstacle count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldUpdateBenchmark {
+    @Param({"5", "50", "500"})
+    public int obstacles;
+
+    @Param({"false", "true"})
+    public boolean packed;
+
+    private WorldDriver driver;
+
+    @Setup
+    public void setup() {
+        driver = new WorldDriver(new BoostPolicy() {
+            @Override
+            public boolean boost(World world) {
+                return world.getRobo().getPosition().y < 200;
+            }
+        }, new EpisodeStats(), obstacles, packed ? new PackedObstacleStore(obstacles) : new ObjectObstacleStore());
+    }
+
+    @Benchmark
+    public World tick() {
+        driver.step(1);
+        return driver.getWorld();
+    }
+}
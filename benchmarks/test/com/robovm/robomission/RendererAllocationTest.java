@@ -0,0 +1,108 @@
+package com.robovm.robomission;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.robovm.robomission.headless.AltitudeBoostPolicy;
+import com.robovm.robomission.headless.EpisodeStats;
+import com.robovm.robomission.headless.WorldDriver;
+
+/**
+ * Fails if {@link Renderer#render(RenderState)} allocates once
+ * warmed up, with the score standing still or changing every
+ * frame. Runs on the headless backend with a {@link StubGL20},
+ * like {@link RendererBenchmark}, and must be run with
+ * android/assets as the working directory. Only the render
+ * calls are measured, using the bytes the JVM counts as
+ * allocated by the current thread.
+ */
+public class RendererAllocationTest {
+    private static final int WARMUP_FRAMES = 20000;
+    private static final int MEASURED_FRAMES = 500;
+
+    private static HeadlessApplication app;
+    private static AssetManager assets;
+    private static Renderer renderer;
+    private static RenderState frame;
+    private static com.sun.management.ThreadMXBean threads;
+    private static long threadId;
+
+    @BeforeClass
+    public static void setup() {
+        app = new HeadlessApplication(new ApplicationAdapter() {}, new HeadlessApplicationConfiguration());
+        Gdx.gl = Gdx.gl20 = new StubGL20();
+
+        assets = new AssetManager();
+        Assets.queueCritical(assets);
+        Assets.queueDeferred(assets);
+        assets.finishLoading();
+
+        renderer = new Renderer(assets);
+        renderer.resize(800, 480);
+
+        // get into the playing state, so the full UI is drawn
+        WorldDriver driver = new WorldDriver(new AltitudeBoostPolicy(10), new EpisodeStats());
+        driver.step(2);
+        frame = new RenderState();
+        frame.capture(driver.getWorld(), false);
+
+        threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threadId = Thread.currentThread().getId();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        assets.dispose();
+        app.exit();
+    }
+
+    @Test
+    public void constantScoreDoesNotAllocate() {
+        frame.setScore(42);
+        assertEquals(0, allocatedBytes(false));
+    }
+
+    @Test
+    public void changingScoreDoesNotAllocate() {
+        assertEquals(0, allocatedBytes(true));
+    }
+
+    /**
+     * Renders the warm up frames, then sums what the
+     * measured frames allocated
+     * @param changeScore whether to change the score every frame
+     * @return the bytes allocated by the measured render calls
+     */
+    private static long allocatedBytes(boolean changeScore) {
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            render(changeScore, i);
+        }
+        long allocated = 0;
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            allocated += render(changeScore, i);
+        }
+        return allocated;
+    }
+
+    private static long render(boolean changeScore, int index) {
+        if (changeScore) {
+            // cycle through one to four digit scores, a world
+            // would have to fly for minutes to change it this often
+            frame.setScore((index * 7919) % 10000);
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        renderer.render(frame);
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+}
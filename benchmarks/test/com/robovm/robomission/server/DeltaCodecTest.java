@@ -0,0 +1,88 @@
+package com.robovm.robomission.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Encodes sequences of fields with {@link DeltaCodec} and
+ * checks the receiver decodes exactly what was sent
+ */
+public class DeltaCodecTest {
+    @Test
+    public void roundTripsNegativeDeltas() {
+        int[][] states = {
+            {100, 50, 0, -3, 7},
+            {99, -50, 0, -1000, 7},
+            {-1, -51, -1, -1000, 6},
+        };
+        assertRoundTrips(states);
+    }
+
+    @Test
+    public void roundTripsExtremeJumps() {
+        int[][] states = {
+            {Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1},
+            {Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE},
+            {Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE},
+            {0, 0, 0, 0},
+        };
+        assertRoundTrips(states);
+    }
+
+    @Test
+    public void roundTripsCountsNotAMultipleOf8() {
+        for (int count : new int[] {1, 7, 9, 13, 17}) {
+            int[][] states = new int[3][count];
+            for (int i = 0; i < count; i++) {
+                states[0][i] = i * 1000;
+                states[1][i] = i % 3 == 0 ? states[0][i] : -i;
+                states[2][i] = i == count - 1 ? Integer.MAX_VALUE : states[1][i];
+            }
+            assertRoundTrips(states);
+        }
+    }
+
+    @Test
+    public void resizesBaselineWhenCountChanges() {
+        ByteBuffer buffer = ByteBuffer.allocate(DeltaCodec.maxEncodedSize(9));
+        int[] fields = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+        DeltaCodec.encode(new int[9], fields, 9, buffer);
+        buffer.flip();
+        int[] decoded = DeltaCodec.decode(new int[4], buffer);
+        assertArrayEquals(fields, decoded);
+    }
+
+    @Test
+    public void unchangedFieldsTakeOneBitEach() {
+        int[] fields = new int[16];
+        ByteBuffer buffer = ByteBuffer.allocate(DeltaCodec.maxEncodedSize(fields.length));
+        DeltaCodec.encode(new int[16], fields, fields.length, buffer);
+        // the count and one mask byte per group of 8
+        assertEquals(3, buffer.position());
+    }
+
+    /**
+     * Sends the states in order, as the server does, and checks
+     * every one decodes to what was sent, using no more than
+     * {@link DeltaCodec#maxEncodedSize(int)} bytes
+     * @param states the fields of each state, all of the same length
+     */
+    private static void assertRoundTrips(int[][] states) {
+        int count = states[0].length;
+        int[] sent = new int[count];
+        int[] received = null;
+        for (int[] state : states) {
+            ByteBuffer buffer = ByteBuffer.allocate(DeltaCodec.maxEncodedSize(count));
+            DeltaCodec.encode(sent, state, count, buffer);
+            assertArrayEquals("baseline is updated", state, sent);
+            buffer.flip();
+            received = DeltaCodec.decode(received, buffer);
+            assertArrayEquals(state, received);
+            assertEquals("all bytes are read", 0, buffer.remaining());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.robovm.robomission.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link Protocol#nextFrame(ByteBuffer)} only returns
+ * frames once they arrived completely, however the bytes are
+ * split up by the network
+ */
+public class ProtocolTest {
+    @Test
+    public void incompleteFramesAreNotReturned() {
+        ByteBuffer in = ByteBuffer.allocate(64);
+        in.put((byte)0);
+        in.flip();
+        assertEquals("partial length", 0, Protocol.nextFrame(in));
+        assertEquals("nothing consumed", 0, in.position());
+
+        byte[] frame = frames();
+        in.clear();
+        in.put(frame, 0, Protocol.HEADER_SIZE + 2);
+        in.flip();
+        assertEquals("partial payload", 0, Protocol.nextFrame(in));
+        assertEquals("nothing consumed", 0, in.position());
+    }
+
+    @Test
+    public void framesSplitAtEveryByteAreRead() {
+        byte[] bytes = frames();
+        for (int chunk = 1; chunk <= bytes.length; chunk++) {
+            ByteBuffer in = ByteBuffer.allocate(64);
+            int welcomes = 0;
+            int inputs = 0;
+            for (int sent = 0; sent < bytes.length; sent += chunk) {
+                in.put(bytes, sent, Math.min(chunk, bytes.length - sent));
+
+                // read like the clients and the server do
+                in.flip();
+                int limit = in.limit();
+                byte type;
+                while ((type = Protocol.nextFrame(in)) != 0) {
+                    if (type == Protocol.WELCOME) {
+                        assertEquals(1234, in.getInt());
+                        assertEquals(1, in.get());
+                        welcomes++;
+                    } else {
+                        assertEquals(Protocol.INPUT, type);
+                        assertEquals(Protocol.TOUCHED | Protocol.TAPPED, in.get());
+                        inputs++;
+                    }
+                    assertEquals("payload read up to the frame's end", 0, in.remaining());
+                    in.position(in.limit());
+                    in.limit(limit);
+                }
+                in.compact();
+            }
+            assertEquals("chunk " + chunk, 1, welcomes);
+            assertEquals("chunk " + chunk, 2, inputs);
+            assertEquals("chunk " + chunk, 0, in.position());
+        }
+    }
+
+    /**
+     * @return a WELCOME frame followed by two INPUT frames
+     */
+    private static byte[] frames() {
+        ByteBuffer out = ByteBuffer.allocate(64);
+        int start = Protocol.beginFrame(out, Protocol.WELCOME);
+        out.putInt(1234);
+        out.put((byte)1);
+        Protocol.endFrame(out, start);
+        for (int i = 0; i < 2; i++) {
+            start = Protocol.beginFrame(out, Protocol.INPUT);
+            out.put((byte)(Protocol.TOUCHED | Protocol.TAPPED));
+            Protocol.endFrame(out, start);
+        }
+        out.flip();
+        byte[] bytes = new byte[out.remaining()];
+        out.get(bytes);
+        return bytes;
+    }
+}
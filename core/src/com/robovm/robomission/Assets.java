@@ -0,0 +1,48 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.BitmapFontLoader;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+
+/**
+ * The file names of all assets and the order they
+ * are loaded in. Critical assets are needed to draw the
+ * first frame of the game, deferred assets are loaded
+ * in the background while the game is already running.
+ */
+public class Assets {
+    public static final String ATLAS = "robomission.atlas";
+    public static final String FONT = "arial.fnt";
+    public static final String MUSIC = "music.mp3";
+    public static final String EXPLOSION = "explode.wav";
+    public static final String FUEL = "fuel.wav";
+    public static final String THRUSTER = "thruster.wav";
+
+    /**
+     * Queues the assets needed to draw the first frame
+     * @param assets the asset manager
+     */
+    public static void queueCritical(AssetManager assets) {
+        assets.load(ATLAS, TextureAtlas.class);
+
+        // the font's glyphs are packed into the atlas
+        BitmapFontLoader.BitmapFontParameter fontParameter = new BitmapFontLoader.BitmapFontParameter();
+        fontParameter.atlasName = ATLAS;
+        assets.load(FONT, BitmapFont.class, fontParameter);
+    }
+
+    /**
+     * Queues the assets the game can start without. The sound
+     * effects are only needed once the player starts playing.
+     * @param assets the asset manager
+     */
+    public static void queueDeferred(AssetManager assets) {
+        assets.load(THRUSTER, Music.class);
+        assets.load(EXPLOSION, Sound.class);
+        assets.load(FUEL, Sound.class);
+        assets.load(MUSIC, Music.class);
+    }
+}
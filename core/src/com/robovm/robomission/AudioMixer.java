@@ -0,0 +1,189 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+
+/**
+ * Turns the events of a {@link World} into audio output.
+ * The world may tick several times per frame and report
+ * the same event more than once, e.g. hitting an obstacle
+ * and running out of fuel in the same frame. Events are
+ * therefore only queued when the {@link WorldEventBus} is
+ * drained and played once per frame in {@link #flush(float)},
+ * with at most {@link #MAX_VOICES} sound effects playing
+ * at a time.
+ * The thruster is only started or stopped when its state
+ * actually changes, so we don't call into the native
+ * audio backend on every tick.
+ *
+ * Audio is loaded in the background while the game is
+ * already running, events are dropped until it is loaded.
+ */
+public class AudioMixer implements WorldEventBus.Listener {
+    // The maximum number of sound effects playing at once,
+    // the oldest one is stopped to make room for a new one
+    public static final int MAX_VOICES = 4;
+
+    // The time in seconds a voice is assumed to play, our
+    // sound effects are all shorter than this
+    public static final float VOICE_SECONDS = 1;
+
+    private static final int EXPLOSION = 0;
+    private static final int FUEL = 1;
+    private static final String[] EFFECT_FILES = { Assets.EXPLOSION, Assets.FUEL };
+
+    private final Sound[] effects = new Sound[EFFECT_FILES.length];
+    private final boolean[] pending = new boolean[EFFECT_FILES.length];
+    private Music backgroundMusic;
+    private Music thruster;
+    private boolean thrusterWanted;
+    private boolean thrusterPlaying;
+
+    // The voices currently playing, used as a ring
+    // so the oldest voice is the next one to reuse
+    private final Sound[] voiceSounds = new Sound[MAX_VOICES];
+    private final long[] voiceIds = new long[MAX_VOICES];
+    private final float[] voiceEnds = new float[MAX_VOICES];
+    private int nextVoice;
+    private float time;
+
+    // Counters for the profiler
+    private int nativeCalls;
+    private int nativeCallsThisSecond;
+    private int nativeCallsPerSecond;
+    private float secondTime;
+    private int mergedEvents;
+    private int stolenVoices;
+
+    /**
+     * Picks up the audio assets once the {@link AssetManager}
+     * has loaded them in the background, call once per frame
+     * @param assets the asset manager
+     */
+    public void update(AssetManager assets) {
+        // The background music, we immediately start playing it
+        if (backgroundMusic == null && assets.isLoaded(Assets.MUSIC)) {
+            backgroundMusic = assets.get(Assets.MUSIC, Music.class);
+            backgroundMusic.setVolume(0.70f);
+            backgroundMusic.setLooping(true);
+            backgroundMusic.play();
+            nativeCalls += 3;
+        }
+
+        // The explosion and fuel pick up sounds. Some backends
+        // only decode a sound or open its audio track when it
+        // is first played, we do that silently up front so the
+        // first real trigger is not late
+        for (int i = 0; i < effects.length; i++) {
+            if (effects[i] == null && assets.isLoaded(EFFECT_FILES[i])) {
+                effects[i] = assets.get(EFFECT_FILES[i], Sound.class);
+                effects[i].play(0);
+                nativeCalls++;
+            }
+        }
+
+        // Thruster, we use a Music instance because sound effect looping
+        // does not work on some Android devices. It loops while boosting,
+        // so we don't have to restart it when it ends
+        if (thruster == null && assets.isLoaded(Assets.THRUSTER)) {
+            thruster = assets.get(Assets.THRUSTER, Music.class);
+            thruster.setLooping(true);
+            nativeCalls++;
+        }
+    }
+
+    /**
+     * Plays the events queued since the last call, call
+     * once per frame after updating the world
+     * @param deltaTime the time since the last frame in seconds
+     */
+    public void flush(float deltaTime) {
+        time += deltaTime;
+
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i]) {
+                pending[i] = false;
+                if (effects[i] != null) play(effects[i]);
+            }
+        }
+
+        if (thruster != null && thrusterWanted != thrusterPlaying) {
+            if (thrusterWanted) thruster.play();
+            else thruster.stop();
+            thrusterPlaying = thrusterWanted;
+            nativeCalls++;
+        }
+
+        nativeCallsThisSecond += nativeCalls;
+        nativeCalls = 0;
+        secondTime += deltaTime;
+        if (secondTime >= 1) {
+            nativeCallsPerSecond = (int)(nativeCallsThisSecond / secondTime);
+            nativeCallsThisSecond = 0;
+            secondTime = 0;
+        }
+    }
+
+    private void play(Sound sound) {
+        // stop the oldest voice if it may still be playing
+        int voice = nextVoice;
+        if (voiceSounds[voice] != null && voiceEnds[voice] > time) {
+            voiceSounds[voice].stop(voiceIds[voice]);
+            nativeCalls++;
+            stolenVoices++;
+        }
+        voiceSounds[voice] = sound;
+        voiceIds[voice] = sound.play();
+        voiceEnds[voice] = time + VOICE_SECONDS;
+        nextVoice = (voice + 1) % MAX_VOICES;
+        nativeCalls++;
+    }
+
+    private void queue(int effect) {
+        if (pending[effect]) mergedEvents++;
+        pending[effect] = true;
+    }
+
+    @Override
+    public void onEvent(WorldEvent event, int tick, int score) {
+        switch (event) {
+            case HitObstacle:
+            case OutOfFuel:
+                queue(EXPLOSION);
+                break;
+            case HitFuel:
+                queue(FUEL);
+                break;
+            case BoostOn:
+                thrusterWanted = true;
+                break;
+            case BoostOff:
+                thrusterWanted = false;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return the number of calls into the audio backend in the last second
+     */
+    public int getNativeCallsPerSecond() {
+        return nativeCallsPerSecond;
+    }
+
+    /**
+     * @return the number of events merged with an event of the same frame so far
+     */
+    public int getMergedEvents() {
+        return mergedEvents;
+    }
+
+    /**
+     * @return the number of voices stopped early to make room for a new one so far
+     */
+    public int getStolenVoices() {
+        return stolenVoices;
+    }
+}
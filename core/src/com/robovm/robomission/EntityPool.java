@@ -0,0 +1,71 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * A {@link Pool} that also keeps track of the entities
+ * currently in use. Entities are spawned from the free
+ * list and recycled back into it, so once the pool is
+ * warmed up spawning and restarting allocates nothing.
+ * Recycled entities are reset via {@link Pool.Poolable#reset()}.
+ */
+public abstract class EntityPool<T extends Pool.Poolable> extends Pool<T> {
+    private final Array<T> active;
+
+    /**
+     * @param initialCapacity the number of entities expected to be active at once
+     */
+    public EntityPool(int initialCapacity) {
+        super(initialCapacity);
+        active = new Array<T>(true, initialCapacity);
+    }
+
+    /**
+     * Creates entities up front until the given number are
+     * free, so the first spawns do not allocate either.
+     * @param count the number of free entities to have
+     */
+    public void fill(int count) {
+        while (getFree() < count) {
+            free(newObject());
+        }
+    }
+
+    /**
+     * @return a reset entity, which is now active
+     */
+    public T spawn() {
+        T entity = obtain();
+        active.add(entity);
+        return entity;
+    }
+
+    /**
+     * Returns the entity to the pool. The entity must not
+     * be used afterwards.
+     * @param entity an active entity
+     */
+    public void recycle(T entity) {
+        if (active.removeValue(entity, true)) {
+            free(entity);
+        }
+    }
+
+    /**
+     * Returns all active entities to the pool
+     */
+    public void recycleAll() {
+        for (int i = 0; i < active.size; i++) {
+            free(active.get(i));
+        }
+        active.clear();
+    }
+
+    /**
+     * @return the active entities, in the order they were spawned
+     */
+    public Array<T> getActive() {
+        return active;
+    }
+}
@@ -0,0 +1,107 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.utils.Timer;
+
+/**
+ * Lowers the render rate while the game is idle, i.e. in
+ * the Ready and GameOver states, where only animations
+ * change. Continuous rendering is turned off and a timer
+ * requests a frame at the idle rate. The first touch or
+ * key press switches back to continuous rendering, so the
+ * game reacts at full rate again.
+ *
+ * Register the pacer as input processor so it sees
+ * input while throttled.
+ */
+public class FramePacer extends InputAdapter {
+    // The render rate while idle, in frames per second
+    public static final int DEFAULT_IDLE_FRAMES_PER_SECOND = 10;
+
+    // The time in seconds an idle state has to last before
+    // we throttle, so e.g. Robo's crash still plays smoothly
+    public static final float IDLE_DELAY = 1.5f;
+
+    private final int idleFramesPerSecond;
+    private final Timer.Task requestFrame = new Timer.Task() {
+        @Override
+        public void run() {
+            Gdx.graphics.requestRendering();
+        }
+    };
+    private boolean throttled;
+    private float idleTime;
+    private int throttledFrames;
+
+    public FramePacer() {
+        this(DEFAULT_IDLE_FRAMES_PER_SECOND);
+    }
+
+    /**
+     * @param idleFramesPerSecond the render rate while idle, 0 to never throttle
+     */
+    public FramePacer(int idleFramesPerSecond) {
+        this.idleFramesPerSecond = idleFramesPerSecond;
+    }
+
+    /**
+     * Throttles or unthrottles rendering based on the state
+     * of the world, call once per rendered frame
+     * @param state the state of the world
+     * @param deltaTime the time since the last frame in seconds
+     */
+    public void update(World.WorldState state, float deltaTime) {
+        if (state == World.WorldState.Playing || idleFramesPerSecond <= 0) {
+            wake();
+            return;
+        }
+
+        idleTime += deltaTime;
+        if (throttled) {
+            throttledFrames++;
+        } else if (idleTime >= IDLE_DELAY) {
+            throttled = true;
+            Gdx.graphics.setContinuousRendering(false);
+            float interval = 1f / idleFramesPerSecond;
+            Timer.schedule(requestFrame, interval, interval);
+        }
+    }
+
+    /**
+     * Switches back to continuous rendering
+     */
+    public void wake() {
+        idleTime = 0;
+        if (!throttled) return;
+        throttled = false;
+        requestFrame.cancel();
+        Gdx.graphics.setContinuousRendering(true);
+    }
+
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        wake();
+        return false;
+    }
+
+    @Override
+    public boolean keyDown(int keycode) {
+        wake();
+        return false;
+    }
+
+    /**
+     * @return whether rendering is currently throttled
+     */
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    /**
+     * @return the number of frames rendered at the idle rate so far
+     */
+    public int getThrottledFrames() {
+        return throttledFrames;
+    }
+}
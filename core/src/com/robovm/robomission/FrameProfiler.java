@@ -0,0 +1,273 @@
+package com.robovm.robomission;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Measures where the time of a frame goes. Keeps rolling
+ * histograms of the frame, update and render time, counts
+ * sprite batch flushes and, while GL profiling is enabled,
+ * draw calls, texture binds and shader switches. Also tracks
+ * Java heap growth per frame and how often it shrank, which
+ * means the garbage collector ran, and the input latency
+ * of touches, see {@link TouchQueue}.
+ */
+public class FrameProfiler {
+    public static final int WINDOW = 600;
+
+    // Touches are rare compared to frames, so the input
+    // latency is kept over fewer samples
+    public static final int INPUT_WINDOW = 100;
+
+    private final RollingHistogram frameTimes = new RollingHistogram(WINDOW);
+    private final RollingHistogram updateTimes = new RollingHistogram(WINDOW);
+    private final RollingHistogram renderTimes = new RollingHistogram(WINDOW);
+    private final RollingHistogram inputLatencies = new RollingHistogram(INPUT_WINDOW);
+
+    private long lastFrameStart;
+    private long updateStart;
+    private long renderStart;
+
+    // Stats of the last finished frame
+    private float frameMillis;
+    private float updateMillis;
+    private float renderMillis;
+    private int renderCalls;
+    private int drawCalls;
+    private int textureBindings;
+    private int shaderSwitches;
+    private long heapGrowth;
+    private int audioCallsPerSecond;
+    private int submittedSprites;
+    private int culledSprites;
+
+    private long lastHeap;
+    private int gcCount;
+
+    /**
+     * Enables or disables counting GL calls. Wraps the GL
+     * context, so it adds some overhead while enabled.
+     * @param enabled whether to count GL calls
+     */
+    public void setGLProfilingEnabled(boolean enabled) {
+        if (enabled) {
+            GLProfiler.enable();
+        } else {
+            GLProfiler.disable();
+        }
+    }
+
+    /**
+     * Marks the start of a frame, the time since the last
+     * start is the frame time
+     */
+    public void beginFrame() {
+        long now = TimeUtils.nanoTime();
+        if (lastFrameStart != 0) {
+            frameMillis = (now - lastFrameStart) / 1000000f;
+            frameTimes.add(frameMillis);
+        }
+        lastFrameStart = now;
+    }
+
+    public void beginUpdate() {
+        updateStart = TimeUtils.nanoTime();
+    }
+
+    public void endUpdate() {
+        updateMillis = (TimeUtils.nanoTime() - updateStart) / 1000000f;
+        updateTimes.add(updateMillis);
+    }
+
+    public void beginRender() {
+        renderStart = TimeUtils.nanoTime();
+    }
+
+    /**
+     * @param renderCalls the number of sprite batch flushes of the frame
+     */
+    public void endRender(int renderCalls) {
+        renderMillis = (TimeUtils.nanoTime() - renderStart) / 1000000f;
+        renderTimes.add(renderMillis);
+        this.renderCalls = renderCalls;
+    }
+
+    /**
+     * Collects the GL and heap stats of the frame
+     */
+    public void endFrame() {
+        if (GLProfiler.isEnabled()) {
+            drawCalls = GLProfiler.drawCalls;
+            textureBindings = GLProfiler.textureBindings;
+            shaderSwitches = GLProfiler.shaderSwitches;
+            GLProfiler.reset();
+        }
+
+        long heap = Gdx.app.getJavaHeap();
+        if (heap < lastHeap) {
+            gcCount++;
+            heapGrowth = 0;
+        } else {
+            heapGrowth = heap - lastHeap;
+        }
+        lastHeap = heap;
+    }
+
+    /**
+     * @param submittedSprites the number of world sprites drawn in the frame
+     * @param culledSprites the number of world sprites skipped because they were off screen
+     */
+    public void setSprites(int submittedSprites, int culledSprites) {
+        this.submittedSprites = submittedSprites;
+        this.culledSprites = culledSprites;
+    }
+
+    /**
+     * @param audioCallsPerSecond the number of calls into the audio backend
+     * in the last second, see {@link AudioMixer#getNativeCallsPerSecond()}
+     */
+    public void setAudioCallsPerSecond(int audioCallsPerSecond) {
+        this.audioCallsPerSecond = audioCallsPerSecond;
+    }
+
+    /**
+     * @param millis the time from a touch to the tick that applied it,
+     * see {@link TouchQueue#pollLatencyMillis()}
+     */
+    public void addInputLatency(float millis) {
+        inputLatencies.add(millis);
+    }
+
+    /**
+     * Writes the percentiles and histograms of the current window
+     * @param file the file to write to
+     */
+    public void dump(FileHandle file) {
+        Writer writer = file.writer(false);
+        try {
+            writer.write("# " + Gdx.app.getType() + ", last " + frameTimes.getSize() + " frames, " + gcCount + " collections\n");
+            writer.write("# metric p50 p95 p99 (ms)\n");
+            writePercentiles(writer, "frame", frameTimes);
+            writePercentiles(writer, "update", updateTimes);
+            writePercentiles(writer, "render", renderTimes);
+            writePercentiles(writer, "input", inputLatencies);
+            writer.write("# bucket(ms) frame update render\n");
+            for (int i = 0; i < frameTimes.getNumBuckets(); i++) {
+                int frames = frameTimes.getBucketCount(i);
+                int updates = updateTimes.getBucketCount(i);
+                int renders = renderTimes.getBucketCount(i);
+                if (frames + updates + renders == 0) continue;
+                writer.write(i * RollingHistogram.BUCKET_MILLIS + " " + frames + " " + updates + " " + renders + "\n");
+            }
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't write frame metrics to " + file.path(), e);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // nothing we can do
+            }
+        }
+    }
+
+    private void writePercentiles(Writer writer, String name, RollingHistogram histogram) throws IOException {
+        writer.write(name + " " + histogram.getPercentile(50) + " " + histogram.getPercentile(95) + " " + histogram.getPercentile(99) + "\n");
+    }
+
+    public RollingHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    public RollingHistogram getUpdateTimes() {
+        return updateTimes;
+    }
+
+    public RollingHistogram getRenderTimes() {
+        return renderTimes;
+    }
+
+    public RollingHistogram getInputLatencies() {
+        return inputLatencies;
+    }
+
+    public float getFrameMillis() {
+        return frameMillis;
+    }
+
+    public float getUpdateMillis() {
+        return updateMillis;
+    }
+
+    public float getRenderMillis() {
+        return renderMillis;
+    }
+
+    /**
+     * @return the number of sprite batch flushes in the last frame
+     */
+    public int getRenderCalls() {
+        return renderCalls;
+    }
+
+    /**
+     * @return the number of GL draw calls in the last frame, while GL profiling is enabled
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * @return the number of texture binds in the last frame, while GL profiling is enabled
+     */
+    public int getTextureBindings() {
+        return textureBindings;
+    }
+
+    /**
+     * @return the number of shader switches in the last frame, while GL profiling is enabled
+     */
+    public int getShaderSwitches() {
+        return shaderSwitches;
+    }
+
+    /**
+     * @return the number of bytes the Java heap grew by in the last frame
+     */
+    public long getHeapGrowth() {
+        return heapGrowth;
+    }
+
+    /**
+     * @return how often the Java heap shrank, that is the garbage collector ran
+     */
+    public int getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * @return the number of calls into the audio backend in the last second
+     */
+    public int getAudioCallsPerSecond() {
+        return audioCallsPerSecond;
+    }
+
+    /**
+     * @return the number of world sprites drawn in the last frame
+     */
+    public int getSubmittedSprites() {
+        return submittedSprites;
+    }
+
+    /**
+     * @return the number of world sprites skipped in the last frame because they were off screen
+     */
+    public int getCulledSprites() {
+        return culledSprites;
+    }
+}
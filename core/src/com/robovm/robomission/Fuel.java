@@ -1,14 +1,20 @@
 package com.robovm.robomission;
 
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool;
 
 /**
  * A fuel cell Robo has to pick up to continue flying
  */
-public class Fuel {
+public class Fuel implements Pool.Poolable {
     private final Vector2 position = new Vector2();
 
     public Vector2 getPosition() {
         return position;
     }
+
+    @Override
+    public void reset() {
+        position.setZero();
+    }
 }
@@ -0,0 +1,19 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.Gdx;
+
+/**
+ * {@link WorldInput} reading the touch state of the
+ * running libGDX backend.
+ */
+public class GdxWorldInput implements WorldInput {
+    @Override
+    public boolean justTouched() {
+        return Gdx.input.justTouched();
+    }
+
+    @Override
+    public boolean isTouched() {
+        return Gdx.input.isTouched();
+    }
+}
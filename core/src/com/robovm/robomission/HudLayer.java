@@ -0,0 +1,185 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * The score pad and fuel bar, composed into an offscreen
+ * {@link FrameBuffer} at screen resolution. The panel is
+ * only drawn again when the score, the fuel level or the
+ * size of the UI changed, every other frame it is a
+ * single textured quad.
+ *
+ * The frame buffer holds premultiplied alpha, so it has
+ * to be drawn with {@link #draw(SpriteBatch, float, float)} which sets
+ * the matching blend function.
+ */
+public class HudLayer implements Disposable {
+    // The fuel level is quantized to this many steps,
+    // the fill only grows or shrinks in whole steps
+    public static final int FUEL_STEPS = 100;
+
+    // Layout of the panel in UI units: the score pad on
+    // the left, 10 units gap, the fuel bar on the right
+    private static final float GAP = 10;
+    private static final float FILL_X = 6;
+    private static final float FILL_Y = 18;
+    private static final float FILL_WIDTH = 19;
+    private static final float FILL_HEIGHT = 309;
+
+    private final TextureRegion scorePad;
+    private final TextureRegion fuelBar;
+    private final TextureRegion whitePixel;
+    private final ScoreLabel scoreLabel;
+    private final Color fillColor;
+    private final float width;
+    private final float height;
+    private final Matrix4 projection = new Matrix4();
+
+    private FrameBuffer frameBuffer;
+    private final TextureRegion region = new TextureRegion();
+    private boolean dirty = true;
+    private int score = -1;
+    private int fuelStep = -1;
+    private int redraws;
+
+    /**
+     * @param scorePad the score pad background
+     * @param fuelBar the fuel bar background
+     * @param whitePixel a white region the fuel fill is drawn with
+     * @param scoreLabel the label to draw the score with
+     * @param fillColor the color of the fuel bar fill
+     */
+    public HudLayer(TextureRegion scorePad, TextureRegion fuelBar, TextureRegion whitePixel, ScoreLabel scoreLabel, Color fillColor) {
+        this.scorePad = scorePad;
+        this.fuelBar = fuelBar;
+        this.whitePixel = whitePixel;
+        this.scoreLabel = scoreLabel;
+        this.fillColor = fillColor;
+        this.width = scorePad.getRegionWidth() + GAP + fuelBar.getRegionWidth();
+        this.height = Math.max(scorePad.getRegionHeight(), fuelBar.getRegionHeight());
+    }
+
+    /**
+     * Recreates the frame buffer to match the resolution
+     * the UI is displayed at
+     * @param uiWidth the width of the UI in UI units
+     * @param screenWidth the width of the screen in pixels
+     */
+    public void resize(float uiWidth, int screenWidth) {
+        float scale = screenWidth / uiWidth;
+        int pixelWidth = Math.max(1, Math.round(width * scale));
+        int pixelHeight = Math.max(1, Math.round(height * scale));
+        if (frameBuffer == null || frameBuffer.getWidth() != pixelWidth || frameBuffer.getHeight() != pixelHeight) {
+            if (frameBuffer != null) {
+                frameBuffer.dispose();
+            }
+            frameBuffer = new FrameBuffer(Pixmap.Format.RGBA8888, pixelWidth, pixelHeight, false);
+            region.setRegion(frameBuffer.getColorBufferTexture());
+            region.flip(false, true);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Marks the panel to be drawn again, e.g. after the
+     * GL context was lost and with it the frame buffer's
+     * contents
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Sets the values to display, the panel is drawn again
+     * on the next {@link #redraw(SpriteBatch)}
+     * if they changed
+     * @param score the score
+     * @param fuel the fuel, 0 to 100
+     */
+    public void update(int score, float fuel) {
+        int step = (int)(fuel / 100 * FUEL_STEPS);
+        if (score != this.score || step != fuelStep) {
+            this.score = score;
+            this.fuelStep = step;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Draws the panel into the frame buffer if anything
+     * changed. Must not be called between begin() and end().
+     * @param batch the batch to draw with
+     * @return whether the panel was drawn
+     */
+    public boolean redraw(SpriteBatch batch) {
+        if (!dirty) return false;
+        dirty = false;
+        redraws++;
+
+        frameBuffer.begin();
+        Gdx.gl.glClearColor(0, 0, 0, 0);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        projection.setToOrtho2D(0, 0, width, height);
+
+        // Blend into the transparent buffer so it ends up
+        // with premultiplied colors and correct alpha. The
+        // batch keeps our blend function if given -1
+        int srcFunc = batch.getBlendSrcFunc();
+        int dstFunc = batch.getBlendDstFunc();
+        batch.setBlendFunction(-1, -1);
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFuncSeparate(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA, GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        batch.setProjectionMatrix(projection);
+        batch.begin();
+        batch.draw(scorePad, 0, 0);
+        scoreLabel.set(score, scorePad.getRegionWidth() / 2, scorePad.getRegionHeight() / 2);
+        scoreLabel.draw(batch);
+        batch.draw(fuelBar, scorePad.getRegionWidth() + GAP, 0);
+        batch.setColor(fillColor);
+        batch.draw(whitePixel, scorePad.getRegionWidth() + GAP + FILL_X, FILL_Y, FILL_WIDTH, fuelStep / (float)FUEL_STEPS * FILL_HEIGHT);
+        batch.setColor(Color.WHITE);
+        batch.end();
+        batch.setBlendFunction(srcFunc, dstFunc);
+        frameBuffer.end();
+        return true;
+    }
+
+    /**
+     * Draws the panel with its right edge 10 units from the
+     * right of the UI, vertically centered
+     * @param batch the batch, must be between begin() and end()
+     * and use the UI camera
+     * @param uiWidth the width of the UI
+     * @param uiHeight the height of the UI
+     */
+    public void draw(SpriteBatch batch, float uiWidth, float uiHeight) {
+        int srcFunc = batch.getBlendSrcFunc();
+        int dstFunc = batch.getBlendDstFunc();
+        batch.setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        batch.draw(region, uiWidth - GAP - width, uiHeight / 2 - fuelBar.getRegionHeight() / 2, width, height);
+        batch.setBlendFunction(srcFunc, dstFunc);
+    }
+
+    /**
+     * @return the number of times the panel was drawn into the frame buffer
+     */
+    public int getRedraws() {
+        return redraws;
+    }
+
+    @Override
+    public void dispose() {
+        if (frameBuffer != null) {
+            frameBuffer.dispose();
+            frameBuffer = null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.robovm.robomission;
+
+/**
+ * A segment of the level, {@link #LENGTH} world units wide,
+ * holding the placements of its obstacles and of one fuel
+ * cell. Chunks have a fixed size so they can be generated
+ * into and copied out of preallocated slots.
+ */
+public class LevelChunk {
+    // The width of a chunk in world units and the maximum
+    // number of obstacles placed in it
+    public static final float LENGTH = 1000;
+    public static final int MAX_OBSTACLES = 5;
+
+    private int index = -1;
+    private int obstacleCount;
+    private final float[] obstacleX = new float[MAX_OBSTACLES];
+    private final float[] obstacleY = new float[MAX_OBSTACLES];
+    private final float[] obstacleRotation = new float[MAX_OBSTACLES];
+    private float fuelX;
+    private float fuelY;
+
+    /**
+     * @return the index of the chunk in the level, -1 if nothing was generated into it yet
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @param index the index of the chunk in the level
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the number of obstacles in the chunk, ordered by x
+     */
+    public int getObstacleCount() {
+        return obstacleCount;
+    }
+
+    /**
+     * @param count the number of obstacles in the chunk, at most {@link #MAX_OBSTACLES}
+     */
+    public void setObstacleCount(int count) {
+        this.obstacleCount = count;
+    }
+
+    public float getObstacleX(int i) {
+        return obstacleX[i];
+    }
+
+    public float getObstacleY(int i) {
+        return obstacleY[i];
+    }
+
+    /**
+     * @return the initial rotation of the obstacle in degrees
+     */
+    public float getObstacleRotation(int i) {
+        return obstacleRotation[i];
+    }
+
+    /**
+     * Places the obstacle with the given index
+     */
+    public void setObstacle(int i, float x, float y, float rotation) {
+        obstacleX[i] = x;
+        obstacleY[i] = y;
+        obstacleRotation[i] = rotation;
+    }
+
+    public float getFuelX() {
+        return fuelX;
+    }
+
+    public float getFuelY() {
+        return fuelY;
+    }
+
+    public void setFuel(float x, float y) {
+        this.fuelX = x;
+        this.fuelY = y;
+    }
+
+    /**
+     * Copies the given chunk into this one
+     * @param other the chunk to copy
+     */
+    public void set(LevelChunk other) {
+        index = other.index;
+        obstacleCount = other.obstacleCount;
+        System.arraycopy(other.obstacleX, 0, obstacleX, 0, other.obstacleCount);
+        System.arraycopy(other.obstacleY, 0, obstacleY, 0, other.obstacleCount);
+        System.arraycopy(other.obstacleRotation, 0, obstacleRotation, 0, other.obstacleCount);
+        fuelX = other.fuelX;
+        fuelY = other.fuelY;
+    }
+}
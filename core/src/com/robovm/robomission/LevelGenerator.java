@@ -0,0 +1,87 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+
+/**
+ * Generates the chunks of a level. A chunk only depends on
+ * the level seed and its index, so chunks can be generated
+ * in any order and on any thread and still come out the
+ * same, which keeps runs replayable.
+ *
+ * The difficulty ramps up with the chunk index, i.e. with
+ * the distance Robo flew and thereby his score: chunks get
+ * denser and switch from scattered obstacles to waves and
+ * stairs Robo has to follow.
+ *
+ * Instances are not thread safe, use one per thread.
+ */
+public class LevelGenerator {
+    // The x coordinate of the first obstacle in the level
+    public static final float START_X = 800;
+
+    // The number of chunks until the difficulty maxes out
+    public static final int RAMP_CHUNKS = 12;
+
+    // The obstacle patterns a chunk can use
+    private static final int SCATTER = 0;
+    private static final int WAVE = 1;
+    private static final int STAIRS = 2;
+
+    private static final float MIN_Y = 0;
+    private static final float MAX_Y = 480 - World.OBSTACLE_HEIGHT;
+
+    private final RandomXS128 random = new RandomXS128();
+
+    /**
+     * Generates a chunk of the level
+     * @param seed the seed of the level
+     * @param index the index of the chunk
+     * @param chunk the chunk to generate into
+     */
+    public void generate(long seed, int index, LevelChunk chunk) {
+        random.setSeed(seed ^ (index * 0x9E3779B97F4A7C15L));
+        float difficulty = Math.min(1, index / (float)RAMP_CHUNKS);
+
+        // Denser chunks later on, but never more than fit
+        // the obstacles we keep around, see World
+        int count = LevelChunk.MAX_OBSTACLES - 1 + (difficulty >= 0.5f ? 1 : 0);
+        float spacing = LevelChunk.LENGTH / count;
+        float startX = START_X + index * LevelChunk.LENGTH;
+
+        int pattern = SCATTER;
+        if (difficulty >= 0.25f) {
+            pattern = (int)(random.nextFloat() * (difficulty >= 0.5f ? 3 : 2));
+        }
+
+        chunk.setIndex(index);
+        chunk.setObstacleCount(count);
+        float phase = random(0, MathUtils.PI2);
+        float from = random(MIN_Y, MAX_Y);
+        float to = random(MIN_Y, MAX_Y);
+        for (int i = 0; i < count; i++) {
+            float y;
+            switch (pattern) {
+                case WAVE:
+                    float amplitude = (MAX_Y - MIN_Y) / 2 * difficulty;
+                    y = (MIN_Y + MAX_Y) / 2 + amplitude * MathUtils.sin(phase + i * MathUtils.PI / 2);
+                    break;
+                case STAIRS:
+                    y = from + (to - from) * i / (count - 1);
+                    break;
+                default:
+                    y = random(MIN_Y, MAX_Y);
+                    break;
+            }
+            chunk.setObstacle(i, startX + i * spacing, MathUtils.clamp(y, MIN_Y, MAX_Y), random(0, 360));
+        }
+
+        // Put the fuel cell between two of the obstacles
+        int gap = (int)(random.nextFloat() * count);
+        chunk.setFuel(startX + gap * spacing + spacing / 2, random(40, 440));
+    }
+
+    private float random(float start, float end) {
+        return start + random.nextFloat() * (end - start);
+    }
+}
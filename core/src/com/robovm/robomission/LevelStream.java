@@ -0,0 +1,191 @@
+package com.robovm.robomission;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams the chunks of a level to the {@link World}. Once
+ * {@link #startProducer()} was called a background thread
+ * generates chunks ahead of the world into a bounded ring
+ * buffer, which the world copies them out of and retires
+ * them from once Robo passed them. If a chunk is not ready
+ * yet, e.g. because the world jumped ahead or no producer
+ * runs at all, it is generated inline instead of waiting,
+ * so reading a chunk never blocks.
+ *
+ * The ring buffer has a single producer and a single
+ * consumer and needs no locks: the producer only writes
+ * {@link #published}, the consumer only writes
+ * {@link #retired}, {@link #seed} and {@link #generation}.
+ * Restarting bumps the generation, which makes the
+ * consumer ignore the ring until the producer caught up.
+ */
+public class LevelStream {
+    // The number of chunks generated ahead, a power of two
+    public static final int DEFAULT_CAPACITY = 8;
+
+    // How long the producer sleeps when the ring is full,
+    // in case a wake up got lost
+    private static final long IDLE_NANOS = 10000000;
+
+    private final LevelChunk[] slots;
+    private final int mask;
+
+    // Written by the consumer
+    private long seed;
+    private volatile int generation;
+    private volatile int retired;
+
+    // Written by the producer
+    private volatile int producedGeneration = -1;
+    private volatile int published;
+
+    private final LevelGenerator inlineGenerator = new LevelGenerator();
+    private volatile Thread producer;
+
+    // Statistics about where chunks came from
+    private int streamedChunks;
+    private int inlineChunks;
+
+    public LevelStream() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of chunks to generate ahead, a power of two
+     */
+    public LevelStream(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        slots = new LevelChunk[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new LevelChunk();
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Starts streaming the level with the given seed from its
+     * first chunk. Called by the consumer.
+     * @param seed the seed of the level
+     */
+    public void restart(long seed) {
+        retired = 0;
+        this.seed = seed;
+        generation++;
+        wakeProducer();
+    }
+
+    /**
+     * Copies the chunk with the given index into the given
+     * chunk, generating it inline if it is not ready. Called
+     * by the consumer.
+     * @param index the index of the chunk, not below the last retired one
+     * @param chunk the chunk to copy into
+     */
+    public void read(int index, LevelChunk chunk) {
+        if (producedGeneration == generation && index >= retired && index < published) {
+            chunk.set(slots[index & mask]);
+            streamedChunks++;
+        } else {
+            inlineGenerator.generate(seed, index, chunk);
+            inlineChunks++;
+        }
+    }
+
+    /**
+     * Frees the slots of all chunks below the given index,
+     * they are not read again. Called by the consumer.
+     * @param index the index of the first chunk still needed
+     */
+    public void retireBefore(int index) {
+        if (index > retired) {
+            retired = index;
+            wakeProducer();
+        }
+    }
+
+    /**
+     * Starts the background thread generating chunks ahead.
+     * Without it all chunks are generated inline.
+     */
+    public void startProducer() {
+        if (producer != null) return;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                produce();
+            }
+        }, "level-generator");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        producer = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the background thread and waits for it to finish
+     * the chunk it is working on. Chunks not yet streamed are
+     * generated inline from then on.
+     */
+    public void stopProducer() {
+        Thread thread = producer;
+        if (thread == null) return;
+        producer = null;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void wakeProducer() {
+        Thread thread = producer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void produce() {
+        LevelGenerator generator = new LevelGenerator();
+        int currentGeneration = -1;
+        long currentSeed = 0;
+        int produced = 0;
+        while (producer == Thread.currentThread()) {
+            int g = generation;
+            if (g != currentGeneration) {
+                currentGeneration = g;
+                currentSeed = seed;
+                produced = retired;
+                published = produced;
+                producedGeneration = g;
+            }
+
+            if (produced - retired < slots.length) {
+                generator.generate(currentSeed, produced, slots[produced & mask]);
+                // Only publish if the level was not restarted
+                // while we were generating
+                if (generation == currentGeneration) {
+                    published = ++produced;
+                }
+            } else {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+        }
+    }
+
+    /**
+     * @return the number of chunks that were read from the ring buffer
+     */
+    public int getStreamedChunks() {
+        return streamedChunks;
+    }
+
+    /**
+     * @return the number of chunks that had to be generated inline
+     */
+    public int getInlineChunks() {
+        return inlineChunks;
+    }
+}
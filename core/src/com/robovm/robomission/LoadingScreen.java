@@ -0,0 +1,39 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+
+/**
+ * Shown while the critical assets are loading. Draws a
+ * progress bar with a ShapeRenderer, so it doesn't need
+ * any assets itself and is up right away.
+ */
+public class LoadingScreen {
+    private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+    private final OrthographicCamera camera = new OrthographicCamera();
+    private final Color roboGreen = new Color(0x8BBF26FF);
+
+    public LoadingScreen() {
+        camera.setToOrtho(false, 800, 480);
+        camera.update();
+    }
+
+    /**
+     * Draws the progress bar
+     * @param progress the loading progress, 0 to 1
+     */
+    public void render(float progress) {
+        shapeRenderer.setProjectionMatrix(camera.combined);
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        shapeRenderer.setColor(Color.BLACK);
+        shapeRenderer.rect(200, 230, 400, 20);
+        shapeRenderer.setColor(roboGreen);
+        shapeRenderer.rect(202, 232, 396 * progress, 16);
+        shapeRenderer.end();
+    }
+
+    public void dispose() {
+        shapeRenderer.dispose();
+    }
+}
@@ -0,0 +1,79 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Stores each obstacle as an {@link Obstacle} instance.
+ * Instances are recycled on {@link #clear()} and reused
+ * by later adds, so restarting allocates nothing.
+ */
+public class ObjectObstacleStore implements ObstacleStore {
+    private final EntityPool<Obstacle> pool = new EntityPool<Obstacle>(World.NUM_OBSTACLES) {
+        @Override
+        protected Obstacle newObject() {
+            return new Obstacle();
+        }
+    };
+    private final Array<Obstacle> obstacles = pool.getActive();
+
+    @Override
+    public int size() {
+        return obstacles.size;
+    }
+
+    @Override
+    public int add(float x, float y, float rotation) {
+        Obstacle o = pool.spawn();
+        o.getPosition().set(x, y);
+        o.setRotation(rotation);
+        return obstacles.size - 1;
+    }
+
+    @Override
+    public void clear() {
+        pool.recycleAll();
+    }
+
+    @Override
+    public float getX(int index) {
+        return obstacles.get(index).getPosition().x;
+    }
+
+    @Override
+    public float getY(int index) {
+        return obstacles.get(index).getPosition().y;
+    }
+
+    @Override
+    public void setPosition(int index, float x, float y) {
+        obstacles.get(index).getPosition().set(x, y);
+    }
+
+    @Override
+    public float getRotation(int index) {
+        return obstacles.get(index).getRotation();
+    }
+
+    @Override
+    public void setRotation(int index, float rotation) {
+        obstacles.get(index).setRotation(rotation);
+    }
+
+    @Override
+    public void rotateAll(float degrees) {
+        for (int i = 0; i < obstacles.size; i++) {
+            Obstacle o = obstacles.get(i);
+            o.setRotation(o.getRotation() + degrees);
+        }
+    }
+
+    @Override
+    public boolean isCounted(int index) {
+        return obstacles.get(index).isCounted();
+    }
+
+    @Override
+    public void setCounted(int index, boolean counted) {
+        obstacles.get(index).setCounted(counted);
+    }
+}
@@ -1,23 +1,19 @@
 package com.robovm.robomission;
 
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool;
 
 /**
  * Represents an obstacle on screen. An obstacle has
  * a position and rectangular bounding box around it
  * which is used for collision detection with Robo.
  */
-public class Obstacle {
+public class Obstacle implements Pool.Poolable {
     private final Vector2 position = new Vector2();
     private boolean counted;
     private float rotation;
 
-    public Obstacle() {
-        this.rotation = MathUtils.random(360);
-    }
-
     /**
      * @return the position of the bottom left corner of the obstacle
      */
@@ -52,4 +48,11 @@ public class Obstacle {
     public void setRotation(float rotation) {
         this.rotation = rotation;
     }
+
+    @Override
+    public void reset() {
+        position.setZero();
+        counted = false;
+        rotation = 0;
+    }
 }
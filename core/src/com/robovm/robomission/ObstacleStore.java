@@ -0,0 +1,71 @@
+package com.robovm.robomission;
+
+/**
+ * Stores the obstacles of the {@link World}. Obstacles are
+ * addressed by index, so the World and Renderer can iterate
+ * them without caring how they are laid out in memory.
+ *
+ * @see ObjectObstacleStore
+ * @see PackedObstacleStore
+ */
+public interface ObstacleStore {
+    /**
+     * @return the number of obstacles
+     */
+    int size();
+
+    /**
+     * Adds an obstacle that has not been counted yet
+     * @param x the x coordinate of the bottom left corner
+     * @param y the y coordinate of the bottom left corner
+     * @param rotation the rotation angle in degrees
+     * @return the index of the new obstacle
+     */
+    int add(float x, float y, float rotation);
+
+    /**
+     * Removes all obstacles
+     */
+    void clear();
+
+    /**
+     * @return the x coordinate of the bottom left corner of the obstacle
+     */
+    float getX(int index);
+
+    /**
+     * @return the y coordinate of the bottom left corner of the obstacle
+     */
+    float getY(int index);
+
+    /**
+     * Sets the position of the bottom left corner of the obstacle
+     */
+    void setPosition(int index, float x, float y);
+
+    /**
+     * @return the rotation angle of the obstacle in degrees
+     */
+    float getRotation(int index);
+
+    /**
+     * @param rotation the rotation angle of the obstacle in degrees
+     */
+    void setRotation(int index, float rotation);
+
+    /**
+     * Adds the same angle to the rotation of all obstacles
+     * @param degrees the angle in degrees
+     */
+    void rotateAll(float degrees);
+
+    /**
+     * @return whether the obstacle has been passed by Robo and counted against the score
+     */
+    boolean isCounted(int index);
+
+    /**
+     * @param counted whether the obstacle has been passed by Robo and counted against the score
+     */
+    void setCounted(int index, boolean counted);
+}
@@ -0,0 +1,128 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * A rectangle rotated around its center, used as the
+ * collision shape of a spinning obstacle. The sine and
+ * cosine come from the lookup tables of {@link MathUtils}
+ * and are only recomputed when the rotation changes, the
+ * axis aligned bounds when the box moves or rotates and
+ * the corners only when they are asked for.
+ */
+public class OrientedBox {
+    private float centerX;
+    private float centerY;
+    private float halfWidth;
+    private float halfHeight;
+    private float rotation = Float.NaN;
+    private float cos;
+    private float sin;
+    private final Rectangle bounds = new Rectangle();
+    private final float[] vertices = new float[8];
+    private boolean verticesDirty = true;
+
+    /**
+     * Moves, resizes and rotates the box, does nothing if
+     * none of the values changed
+     * @param centerX the x-coordinate of the center
+     * @param centerY the y-coordinate of the center
+     * @param halfWidth half the width before rotating
+     * @param halfHeight half the height before rotating
+     * @param degrees the rotation around the center in degrees, counter clockwise
+     */
+    public void set(float centerX, float centerY, float halfWidth, float halfHeight, float degrees) {
+        boolean rotated = degrees != rotation;
+        if (!rotated && centerX == this.centerX && centerY == this.centerY
+                && halfWidth == this.halfWidth && halfHeight == this.halfHeight) {
+            return;
+        }
+        if (rotated) {
+            rotation = degrees;
+            cos = MathUtils.cosDeg(degrees);
+            sin = MathUtils.sinDeg(degrees);
+        }
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.halfWidth = halfWidth;
+        this.halfHeight = halfHeight;
+
+        float extentX = halfWidth * Math.abs(cos) + halfHeight * Math.abs(sin);
+        float extentY = halfWidth * Math.abs(sin) + halfHeight * Math.abs(cos);
+        bounds.set(centerX - extentX, centerY - extentY, extentX * 2, extentY * 2);
+        verticesDirty = true;
+    }
+
+    /**
+     * @return the x-coordinate of the center
+     */
+    public float getCenterX() {
+        return centerX;
+    }
+
+    /**
+     * @return the y-coordinate of the center
+     */
+    public float getCenterY() {
+        return centerY;
+    }
+
+    /**
+     * @return half the width along the box's own x-axis
+     */
+    public float getHalfWidth() {
+        return halfWidth;
+    }
+
+    /**
+     * @return half the height along the box's own y-axis
+     */
+    public float getHalfHeight() {
+        return halfHeight;
+    }
+
+    /**
+     * @return the cosine of the rotation, the x-component of the box's x-axis
+     */
+    public float getCos() {
+        return cos;
+    }
+
+    /**
+     * @return the sine of the rotation, the y-component of the box's x-axis
+     */
+    public float getSin() {
+        return sin;
+    }
+
+    /**
+     * @return the smallest axis aligned rectangle containing the box, do not modify
+     */
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return the corners as x, y pairs, counter clockwise starting
+     * with the bottom left corner before rotating, do not modify
+     */
+    public float[] getVertices() {
+        if (verticesDirty) {
+            float ux = cos * halfWidth;
+            float uy = sin * halfWidth;
+            float vx = -sin * halfHeight;
+            float vy = cos * halfHeight;
+            vertices[0] = centerX - ux - vx;
+            vertices[1] = centerY - uy - vy;
+            vertices[2] = centerX + ux - vx;
+            vertices[3] = centerY + uy - vy;
+            vertices[4] = centerX + ux + vx;
+            vertices[5] = centerY + uy + vy;
+            vertices[6] = centerX - ux + vx;
+            vertices[7] = centerY - uy + vy;
+            verticesDirty = false;
+        }
+        return vertices;
+    }
+}
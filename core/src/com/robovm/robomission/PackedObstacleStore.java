@@ -0,0 +1,109 @@
+package com.robovm.robomission;
+
+import java.util.Arrays;
+
+/**
+ * Stores obstacles as a struct of arrays: one primitive
+ * array per attribute and a bit set for the counted flags.
+ * Loops over all obstacles walk linear memory instead of
+ * chasing pointers, which pays off with many obstacles
+ * on devices with small caches.
+ */
+public class PackedObstacleStore implements ObstacleStore {
+    private float[] x;
+    private float[] y;
+    private float[] rotation;
+    private long[] counted;
+    private int size;
+
+    public PackedObstacleStore() {
+        this(16);
+    }
+
+    /**
+     * @param capacity the number of obstacles to reserve memory for
+     */
+    public PackedObstacleStore(int capacity) {
+        x = new float[capacity];
+        y = new float[capacity];
+        rotation = new float[capacity];
+        counted = new long[(capacity + 63) / 64];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int add(float x, float y, float rotation) {
+        if (size == this.x.length) grow();
+        int index = size++;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.rotation[index] = rotation;
+        setCounted(index, false);
+        return index;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public float getX(int index) {
+        return x[index];
+    }
+
+    @Override
+    public float getY(int index) {
+        return y[index];
+    }
+
+    @Override
+    public void setPosition(int index, float x, float y) {
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    @Override
+    public float getRotation(int index) {
+        return rotation[index];
+    }
+
+    @Override
+    public void setRotation(int index, float rotation) {
+        this.rotation[index] = rotation;
+    }
+
+    @Override
+    public void rotateAll(float degrees) {
+        float[] rotation = this.rotation;
+        for (int i = 0, n = size; i < n; i++) {
+            rotation[i] += degrees;
+        }
+    }
+
+    @Override
+    public boolean isCounted(int index) {
+        return (counted[index >>> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public void setCounted(int index, boolean counted) {
+        if (counted) {
+            this.counted[index >>> 6] |= 1L << index;
+        } else {
+            this.counted[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, x.length * 2);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        rotation = Arrays.copyOf(rotation, capacity);
+        counted = Arrays.copyOf(counted, (capacity + 63) / 64);
+    }
+}
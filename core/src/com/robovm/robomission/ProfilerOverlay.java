@@ -0,0 +1,93 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.utils.StringBuilder;
+
+/**
+ * Draws the stats of a {@link FrameProfiler} on top of the
+ * game: the numbers of the last frame, the percentiles of
+ * the window and a graph of the recent frame times. Uses
+ * its own batch and libGDX's built-in font, as the game's
+ * font only contains digits.
+ */
+public class ProfilerOverlay {
+    // Height in pixels of a millisecond in the graph
+    private static final float GRAPH_SCALE = 4;
+
+    private final SpriteBatch batch = new SpriteBatch();
+    private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+    private final BitmapFont font = new BitmapFont();
+    private final OrthographicCamera camera = new OrthographicCamera();
+    private final StringBuilder text = new StringBuilder();
+
+    public void resize(int width, int height) {
+        camera.setToOrtho(false, width, height);
+        camera.update();
+    }
+
+    public void render(FrameProfiler profiler) {
+        // draw the frame time graph, one bar per frame,
+        // colored by whether we hit 60 or 30 fps
+        RollingHistogram frameTimes = profiler.getFrameTimes();
+        shapeRenderer.setProjectionMatrix(camera.combined);
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        for (int i = 0; i < frameTimes.getSize(); i++) {
+            float millis = frameTimes.getSample(i);
+            shapeRenderer.setColor(millis <= 17 ? Color.GREEN : millis <= 34 ? Color.YELLOW : Color.RED);
+            shapeRenderer.rect(10 + i, 10, 1, millis * GRAPH_SCALE);
+        }
+        shapeRenderer.setColor(Color.WHITE);
+        shapeRenderer.rect(10, 10 + 1000 / 60f * GRAPH_SCALE, FrameProfiler.WINDOW, 1);
+        shapeRenderer.end();
+
+        text.setLength(0);
+        text.append("frame ");
+        appendMillis(profiler.getFrameMillis()).append("ms  p50 ");
+        appendMillis(frameTimes.getPercentile(50)).append("  p95 ");
+        appendMillis(frameTimes.getPercentile(95)).append("  p99 ");
+        appendMillis(frameTimes.getPercentile(99)).append('\n');
+        text.append("update ");
+        appendMillis(profiler.getUpdateMillis()).append("ms  render ");
+        appendMillis(profiler.getRenderMillis()).append("ms\n");
+        text.append("batch flushes ").append(profiler.getRenderCalls())
+            .append("  draw calls ").append(profiler.getDrawCalls())
+            .append("  texture binds ").append(profiler.getTextureBindings())
+            .append("  shader switches ").append(profiler.getShaderSwitches()).append('\n');
+        text.append("sprites ").append(profiler.getSubmittedSprites())
+            .append("  culled ").append(profiler.getCulledSprites()).append('\n');
+        text.append("heap +").append(profiler.getHeapGrowth())
+            .append(" bytes  collections ").append(profiler.getGcCount()).append('\n');
+        text.append("audio calls/s ").append(profiler.getAudioCallsPerSecond()).append('\n');
+        RollingHistogram inputLatencies = profiler.getInputLatencies();
+        text.append("input latency p50 ");
+        appendMillis(inputLatencies.getPercentile(50)).append("ms  p95 ");
+        appendMillis(inputLatencies.getPercentile(95)).append("ms");
+
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        font.draw(batch, text, 10, camera.viewportHeight - 10);
+        batch.end();
+    }
+
+    /**
+     * Appends milliseconds with one decimal. Appending a float
+     * goes through Float.toString, the overlay would allocate
+     * every frame and show up in the numbers it displays
+     * @param millis the milliseconds, not negative
+     * @return the text
+     */
+    private StringBuilder appendMillis(float millis) {
+        int tenths = Math.round(millis * 10);
+        return text.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    public void dispose() {
+        batch.dispose();
+        shapeRenderer.dispose();
+        font.dispose();
+    }
+}
@@ -0,0 +1,216 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * A copy of everything the {@link Renderer} needs from a
+ * {@link World}, taken after the world was updated. The
+ * renderer only reads the copy, so the world can be
+ * simulated further on another thread while the copy is
+ * drawn, see {@link WorldPipeline}. All storage is
+ * allocated up front, capturing does not generate garbage.
+ */
+public class RenderState {
+    private World.WorldState state = World.WorldState.Ready;
+    private int score;
+    private float alpha;
+
+    private final Vector2 roboPreviousPosition = new Vector2();
+    private final Vector2 roboPosition = new Vector2();
+    private float roboVelocityY;
+    private float roboFuel;
+    private float roboStateTime;
+    private final Vector2 fuelPosition = new Vector2();
+
+    private int obstacleCount;
+    private float[] obstacleX = new float[0];
+    private float[] obstacleY = new float[0];
+    private float[] obstacleRotation = new float[0];
+
+    // The collision bounds, drawn for debugging and only
+    // captured while that is on
+    private boolean collisionBounds;
+    private final Rectangle roboBounds = new Rectangle();
+    private final Rectangle fuelBounds = new Rectangle();
+    private float[] obstacleVertices = new float[0];
+
+    /**
+     * Copies the state of the world, must not be called
+     * while the world is being updated
+     * @param world the world
+     * @param collisionBounds whether to copy the collision bounds too, which
+     * makes the world update the rotated box of every obstacle
+     */
+    public void capture(World world, boolean collisionBounds) {
+        state = world.getState();
+        score = world.getScore();
+        alpha = world.getAlpha();
+
+        Robo robo = world.getRobo();
+        roboPreviousPosition.set(robo.getPreviousPosition());
+        roboPosition.set(robo.getPosition());
+        roboVelocityY = robo.getVelocity().y;
+        roboFuel = robo.getFuel();
+        roboStateTime = robo.getStateTime();
+        fuelPosition.set(world.getFuel().getPosition());
+
+        // The number of obstacles only changes if the world
+        // does, so we only allocate on the first capture
+        ObstacleStore obstacles = world.getObstacles();
+        obstacleCount = obstacles.size();
+        if (obstacleX.length < obstacleCount) {
+            obstacleX = new float[obstacleCount];
+            obstacleY = new float[obstacleCount];
+            obstacleRotation = new float[obstacleCount];
+            obstacleVertices = new float[obstacleCount * 8];
+        }
+        for (int i = 0; i < obstacleCount; i++) {
+            obstacleX[i] = obstacles.getX(i);
+            obstacleY[i] = obstacles.getY(i);
+            obstacleRotation[i] = obstacles.getRotation(i);
+        }
+
+        this.collisionBounds = collisionBounds;
+        if (collisionBounds) {
+            roboBounds.set(world.getRoboBounds());
+            fuelBounds.set(world.getFuelBounds(world.getFuel()));
+            for (int i = 0; i < obstacleCount; i++) {
+                System.arraycopy(world.getObstacleBox(i).getVertices(), 0, obstacleVertices, i * 8, 8);
+            }
+        }
+    }
+
+    /**
+     * @return the game state
+     */
+    public World.WorldState getState() {
+        return state;
+    }
+
+    /**
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Overrides the captured score, lets tests exercise the
+     * HUD without flying a world that far
+     * @param score the score
+     */
+    void setScore(int score) {
+        this.score = score;
+    }
+
+    /**
+     * @return how far the world was between the previous and the
+     * current simulation tick, see {@link World#getAlpha()}
+     */
+    public float getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * @return Robo's position at the start of the last tick, do not modify
+     */
+    public Vector2 getRoboPreviousPosition() {
+        return roboPreviousPosition;
+    }
+
+    /**
+     * @return Robo's position, do not modify
+     */
+    public Vector2 getRoboPosition() {
+        return roboPosition;
+    }
+
+    /**
+     * @return Robo's vertical velocity
+     */
+    public float getRoboVelocityY() {
+        return roboVelocityY;
+    }
+
+    /**
+     * @return Robo's fuel
+     */
+    public float getRoboFuel() {
+        return roboFuel;
+    }
+
+    /**
+     * @return the time Robo has been flying, to pick animation frames
+     */
+    public float getRoboStateTime() {
+        return roboStateTime;
+    }
+
+    /**
+     * @return the position of the fuel cell, do not modify
+     */
+    public Vector2 getFuelPosition() {
+        return fuelPosition;
+    }
+
+    /**
+     * @return the number of obstacles
+     */
+    public int getObstacleCount() {
+        return obstacleCount;
+    }
+
+    /**
+     * @param index the index of the obstacle
+     * @return the x-coordinate of the obstacle's lower left corner
+     */
+    public float getObstacleX(int index) {
+        return obstacleX[index];
+    }
+
+    /**
+     * @param index the index of the obstacle
+     * @return the y-coordinate of the obstacle's lower left corner
+     */
+    public float getObstacleY(int index) {
+        return obstacleY[index];
+    }
+
+    /**
+     * @param index the index of the obstacle
+     * @return the rotation of the obstacle in degrees
+     */
+    public float getObstacleRotation(int index) {
+        return obstacleRotation[index];
+    }
+
+    /**
+     * @return whether the collision bounds were captured, see {@link #capture(World, boolean)}
+     */
+    public boolean hasCollisionBounds() {
+        return collisionBounds;
+    }
+
+    /**
+     * @return the bounds of Robo, do not modify
+     */
+    public Rectangle getRoboBounds() {
+        return roboBounds;
+    }
+
+    /**
+     * @return the bounds of the fuel cell, do not modify
+     */
+    public Rectangle getFuelBounds() {
+        return fuelBounds;
+    }
+
+    /**
+     * @return the corners of the obstacles' rotated collision boxes,
+     * 8 floats per obstacle, see {@link OrientedBox#getVertices()}. Do not modify
+     */
+    public float[] getObstacleVertices() {
+        return obstacleVertices;
+    }
+}
@@ -1,62 +1,82 @@
 package com.robovm.robomission;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.audio.Music;
-import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Pixmap;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.*;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.viewport.Viewport;
 
 /**
- * Takes a world and renders its state to the screen
- * and via audio output. Also manages all asset, from
- * UI graphics to sound effects.
+ * Takes a world and renders its state to the screen.
+ * Gets all graphics assets from an {@link AssetManager},
+ * audio is played by the {@link AudioMixer}.
  */
-public class Renderer implements World.WorldCallback {
+public class Renderer {
     private final SpriteBatch batch;
-    private final ShapeRenderer shapeRenderer;
     private final OrthographicCamera worldCamera;
     private final OrthographicCamera uiCamera;
     private float uiWidth;
     private float uiHeight;
 
+    private final TextureAtlas atlas;
     private final BitmapFont font;
-    private final GlyphLayout layout;
-    private final Texture background;
+    private final ScoreLabel scoreLabel;
+    private final HudLayer hud;
+    private final TextureRegion background;
     private final TextureRegion ground;
     private final TextureRegion ceiling;
     private final TextureRegion obstacle;
     private final TextureRegion fuel;
     private final TextureRegion fuelBar;
     private final TextureRegion scorePad;
+    private final TextureRegion whitePixel;
     private final Color roboGreen = new Color(0x8BBF26FF);
     private final Animation roboUp;
     private final Animation roboDown;
     private final Animation roboDead;
     private final TextureRegion ready;
     private final TextureRegion gameOver;
-    private final Music backgroundMusic;
-    private final Sound explosion;
-    private final Sound fuelPickedUp;
-    private final Music thruster;
 
     // Used for generating an infinitely scrolling
     // world (ground and ceiling)
     private float groundOffsetX = 0;
 
-    public Renderer() {
+    // Robo's position interpolated between the last two
+    // simulation ticks
+    private final Vector2 roboPosition = new Vector2();
+
+    // Number of sprite batch flushes in the last frame and
+    // whether to draw the bounds of all objects
+    private int renderCalls;
+    private boolean debug;
+
+    // The area of the world visible through the world camera.
+    // World sprites outside of it are not submitted to the
+    // batch, these count the sprites of the last frame
+    private final Rectangle viewBounds = new Rectangle();
+    private int submittedSprites;
+    private int culledSprites;
+
+    // Obstacles rotate around their center, this is the
+    // radius of the circle they stay within
+    private static final float OBSTACLE_RADIUS = (float)Math.sqrt(World.OBSTACLE_WIDTH * World.OBSTACLE_WIDTH
+            + World.OBSTACLE_HEIGHT * World.OBSTACLE_HEIGHT) / 2;
+
+    /**
+     * @param assets the asset manager, must have finished loading the
+     * critical assets, see {@link Assets#queueCritical(AssetManager)}
+     */
+    public Renderer(AssetManager assets) {
+
         // the SpriteBatch is used to render TextureRegions
         batch = new SpriteBatch();
 
-        // the ShapeRenderer to render debug bounds and fuel gauge
-        shapeRenderer = new ShapeRenderer();
-
         // The world camera is used to render objects within
         // the game world. We assume 800x480 world units to
         // be visible on the screen, irrespective of the
@@ -70,37 +90,43 @@ public class Renderer implements World.WorldCallback {
         uiCamera = new OrthographicCamera();
         resizeUICamera(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
 
-        // finally we load all the assets we need
-        // the fond used to display the score. We
-        // also use a GlyphLayout to position the text
-        font = new BitmapFont(Gdx.files.internal("arial.fnt"));
-        layout = new GlyphLayout(font, "0");
+        // finally we look up all the assets we need. All
+        // images are packed into a single atlas at build
+        // time, so we can draw a frame without switching
+        // textures
+        atlas = assets.get(Assets.ATLAS, TextureAtlas.class);
+
+        // the font used to display the score, its glyphs
+        // are in the atlas as well. The ScoreLabel caches
+        // the laid out glyphs
+        font = assets.get(Assets.FONT, BitmapFont.class);
+        scoreLabel = new ScoreLabel(font);
 
         // the static background
-        background = new Texture("background.png");
-        background.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        background = atlas.findRegion("background");
 
         // the ground and ceiling
-        ground = new TextureRegion(new Texture("ground.png"));
-        ground.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        ground = atlas.findRegion("ground");
         ceiling = new TextureRegion(ground);
         ceiling.flip(true, true);
 
-        // the obstacle, and its upside down version
-        obstacle = new TextureRegion(new Texture("rock.png"));
-        obstacle.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        // the obstacle
+        obstacle = atlas.findRegion("rock");
 
         // the fuel cell
-        fuel = new TextureRegion(new Texture("fuel-pod.png"));
-        fuel.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        fuel = atlas.findRegion("fuel-pod");
 
         // the fuel bar
-        fuelBar = new TextureRegion(new Texture("fuel-bar-background.png"));
-        fuelBar.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        fuelBar = atlas.findRegion("fuel-bar-background");
 
         // the score pad
-        scorePad = new TextureRegion(new Texture("scorepad.png"));
-        scorePad.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        scorePad = atlas.findRegion("scorepad");
+
+        // a white pixel to draw the fuel gauge and debug
+        // bounds with, so they go through the sprite batch
+        // as well. We use the center of a 3x3 region so
+        // filtering never picks up neighbouring images
+        whitePixel = new TextureRegion(atlas.findRegion("white"), 1, 1, 1, 1);
 
         // Robo's animations
         roboUp = loadAnimation("robo-up", 3, 0.07f);
@@ -111,32 +137,19 @@ public class Renderer implements World.WorldCallback {
         roboDead.setPlayMode(Animation.PlayMode.LOOP);
 
         // The ready label
-        ready = new TextureRegion(new Texture("ready.png"));
-        ready.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
+        ready = atlas.findRegion("ready");
 
         // The game over label
-        gameOver = new TextureRegion(new Texture("gameover.png"));
-        gameOver.getTexture().setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
-
-        // The background music, we immediately start playing it
-        backgroundMusic = Gdx.audio.newMusic(Gdx.files.internal("music.mp3"));
-        backgroundMusic.setVolume(0.70f);
-        backgroundMusic.setLooping(true);
-        backgroundMusic.play();
-
-        // The explosion sound when Robo hits an obstacle
-        explosion = Gdx.audio.newSound(Gdx.files.internal("explode.wav"));
+        gameOver = atlas.findRegion("gameover");
 
-        // The pick up sound when Robo hits a fuel cell
-        fuelPickedUp = Gdx.audio.newSound(Gdx.files.internal("fuel.wav"));
-
-        // Thruster, we use a Music instance because sound effect looping
-        // does not work on some Android devices
-        thruster = Gdx.audio.newMusic(Gdx.files.internal("thruster.wav"));
+        // The score pad and fuel bar are cached in a
+        // frame buffer and only drawn when they change
+        hud = new HudLayer(scorePad, fuelBar, whitePixel, scoreLabel, roboGreen);
+        hud.resize(uiWidth, Gdx.graphics.getWidth());
     }
 
     /**
-     * Loads an animation given a prefix and number of frames
+     * Looks up an animation in the atlas given a prefix and number of frames
      * @param prefix the prefix, e.g. robo-down
      * @param numFrames the number of frames
      * @param frameTime the duration of a frame
@@ -145,151 +158,257 @@ public class Renderer implements World.WorldCallback {
     private Animation loadAnimation(String prefix, int numFrames, float frameTime) {
         Array<TextureRegion> frames = new Array<TextureRegion>();
         for(int i = 0; i < numFrames; i++) {
-            Texture texture = new Texture(prefix + "-" + (i+1) + ".png");
-            texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
-            frames.add(new TextureRegion(texture));
+            frames.add(atlas.findRegion(prefix + "-" + (i+1)));
         }
         return new Animation(frameTime, frames);
     }
 
     /**
-     * Renders the game world and the overlayed UI based on the
-     * {@link World}.
+     * Renders the game world and the overlayed UI based on a
+     * copy of the {@link World}, so the world can be updated
+     * while we render, see {@link WorldPipeline}.
+     * @param frame the state of the world to render
      */
-    public void render(World world) {
+    public void render(RenderState frame) {
+        renderCalls = 0;
+        submittedSprites = 0;
+        culledSprites = 0;
+
+        // Interpolate Robo's position between the last two ticks, so
+        // movement looks smooth independent of the tick rate
+        roboPosition.set(frame.getRoboPreviousPosition()).lerp(frame.getRoboPosition(), frame.getAlpha());
+
+        // Bring the cached score pad and fuel bar up to date
+        // before we start drawing the frame
+        hud.update(frame.getScore(), frame.getRoboFuel());
+        if (hud.redraw(batch)) {
+            renderCalls += batch.renderCalls;
+        }
 
         // Update the camera based on Robo's position
-        worldCamera.position.x = world.getRobo().getPosition().x + 350;
+        worldCamera.position.x = roboPosition.x + 350;
 
         // If the camera has moved far enough for the ground tiles to
-        // disappear off-screen, updated the groundOffset
-        if (worldCamera.position.x - groundOffsetX > ground.getRegionWidth() + 400) {
+        // disappear off-screen, updated the groundOffset. After a
+        // world was restored from a snapshot this may take a jump
+        while (worldCamera.position.x - groundOffsetX > ground.getRegionWidth() + 400) {
             groundOffsetX += ground.getRegionWidth();
         }
+        while (worldCamera.position.x - 400 < groundOffsetX) {
+            groundOffsetX -= ground.getRegionWidth();
+        }
 
         // Update thew orld camera matrices and set them on the batch
         worldCamera.update();
         batch.setProjectionMatrix(worldCamera.combined);
+        float viewWidth = worldCamera.viewportWidth * worldCamera.zoom;
+        float viewHeight = worldCamera.viewportHeight * worldCamera.zoom;
+        viewBounds.set(worldCamera.position.x - viewWidth / 2, worldCamera.position.y - viewHeight / 2, viewWidth, viewHeight);
 
         // draw the background
         batch.begin();
-        batch.draw(background, worldCamera.position.x - background.getWidth() / 2, 0);
-
-        // Draw the obstacles
-        for (Obstacle o : world.getObstacles()) {
-            batch.draw(obstacle, o.getPosition().x, o.getPosition().y, World.OBSTACLE_WIDTH / 2, World.OBSTACLE_HEIGHT / 2, World.OBSTACLE_WIDTH, World.OBSTACLE_HEIGHT, 1, 1, o.getRotation());
+        draw(background, worldCamera.position.x - background.getRegionWidth() / 2, 0, background.getRegionWidth(), background.getRegionHeight());
+
+        // Draw the obstacles, culled by the circle they rotate in
+        for (int i = 0; i < frame.getObstacleCount(); i++) {
+            float x = frame.getObstacleX(i);
+            float y = frame.getObstacleY(i);
+            float centerX = x + World.OBSTACLE_WIDTH / 2;
+            float centerY = y + World.OBSTACLE_HEIGHT / 2;
+            if (isVisible(centerX - OBSTACLE_RADIUS, centerY - OBSTACLE_RADIUS, OBSTACLE_RADIUS * 2, OBSTACLE_RADIUS * 2)) {
+                batch.draw(obstacle, x, y, World.OBSTACLE_WIDTH / 2, World.OBSTACLE_HEIGHT / 2, World.OBSTACLE_WIDTH, World.OBSTACLE_HEIGHT, 1, 1, frame.getObstacleRotation(i));
+            }
         }
 
         // Draw the fuel cell
-        batch.draw(fuel, world.getFuel().getPosition().x, world.getFuel().getPosition().y, World.FUEL_WIDTH, World.FUEL_HEIGHT);
+        draw(fuel, frame.getFuelPosition().x, frame.getFuelPosition().y, World.FUEL_WIDTH, World.FUEL_HEIGHT);
 
         // Draw repeating ground and ceiling
-        batch.draw(ground, groundOffsetX, 0);
-        batch.draw(ground, groundOffsetX + ground.getRegionWidth(), 0);
-        batch.draw(ceiling, groundOffsetX, 480 - ceiling.getRegionHeight());
-        batch.draw(ceiling, groundOffsetX + ceiling.getRegionWidth(), 480 - ceiling.getRegionHeight());
+        draw(ground, groundOffsetX, 0, ground.getRegionWidth(), ground.getRegionHeight());
+        draw(ground, groundOffsetX + ground.getRegionWidth(), 0, ground.getRegionWidth(), ground.getRegionHeight());
+        draw(ceiling, groundOffsetX, 480 - ceiling.getRegionHeight(), ceiling.getRegionWidth(), ceiling.getRegionHeight());
+        draw(ceiling, groundOffsetX + ceiling.getRegionWidth(), 480 - ceiling.getRegionHeight(), ceiling.getRegionWidth(), ceiling.getRegionHeight());
 
         // Draw Robo's animation, based on the time he's been flying so far.
         Animation anim = null;
-        if(world.getState() == World.WorldState.Ready) {
+        if(frame.getState() == World.WorldState.Ready) {
             anim = roboDown;
-        } else if (world.getState() == World.WorldState.GameOver) {
+        } else if (frame.getState() == World.WorldState.GameOver) {
             anim = roboDead;
-        } else if (world.getState() == World.WorldState.Playing) {
-            if(world.getRobo().getFuel() == 0) {
+        } else if (frame.getState() == World.WorldState.Playing) {
+            if(frame.getRoboFuel() == 0) {
                 anim = roboDead;
-            } else if(world.getRobo().getVelocity().y > 0) {
+            } else if(frame.getRoboVelocityY() > 0) {
                 anim = roboUp;
             } else {
                 anim = roboDown;
             }
         }
-        batch.draw(anim.getKeyFrame(world.getRobo().getStateTime()), world.getRobo().getPosition().x, world.getRobo().getPosition().y, World.ROBO_WIDTH, World.ROBO_HEIGHT);
-        batch.end();
+        draw(anim.getKeyFrame(frame.getRoboStateTime()), roboPosition.x, roboPosition.y, World.ROBO_WIDTH, World.ROBO_HEIGHT);
+
+        // frames captured before debugging was turned on
+        // have no bounds to draw
+        if (debug && frame.hasCollisionBounds()) {
+            renderDebug(frame);
+        }
+        endBatch();
 
         // Draw the UI elements based on the world state
-        // using the UI camera for pixel perfect rendering
+        // using the UI camera for pixel perfect rendering,
+        // all in a single batch
         batch.setProjectionMatrix(uiCamera.combined);
-        if (world.getState() == World.WorldState.Ready) {
+        batch.begin();
+        if (frame.getState() == World.WorldState.Ready) {
             groundOffsetX = 0;
-            batch.begin();
             batch.draw(ready, uiWidth / 2 - ready.getRegionWidth() / 2, uiHeight / 2 - ready.getRegionHeight() / 2);
-            batch.end();
         }
-        if (world.getState() == World.WorldState.GameOver) {
-            batch.begin();
+        if (frame.getState() == World.WorldState.GameOver) {
             batch.draw(gameOver, uiWidth / 2 - gameOver.getRegionWidth() / 2, uiHeight / 2 - gameOver.getRegionHeight() / 2);
-            batch.end();
         }
-        if (world.getState() == World.WorldState.Playing || world.getState() == World.WorldState.GameOver) {
-            // draw fuel bar background ands score pad with score
-            batch.begin();
-            float scorePadX = uiWidth - 20 - fuelBar.getRegionWidth() - scorePad.getRegionWidth();
-            float scorePadY = uiHeight / 2 - fuelBar.getRegionHeight() / 2;
-            batch.draw(scorePad, scorePadX, scorePadY);
-
-            layout.setText(font, "" + world.getScore());
-            font.draw(batch, "" + world.getScore(), scorePadX + scorePad.getRegionWidth() / 2 - layout.width / 2, scorePadY + scorePad.getRegionHeight() / 2 + layout.height / 2);
-
-            batch.draw(fuelBar, uiWidth - 10 - fuelBar.getRegionWidth(), uiHeight / 2 - fuelBar.getRegionHeight() / 2);
-            batch.end();
-
-            // draw fuel bar fill
-            shapeRenderer.setProjectionMatrix(uiCamera.combined);
-            shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-            shapeRenderer.setColor(roboGreen);
-            shapeRenderer.rect(uiWidth - 10 - fuelBar.getRegionWidth() + 6, uiHeight / 2 - fuelBar.getRegionHeight() / 2 + 18, 19, world.getRobo().getFuel() / 100f * 309);
-            shapeRenderer.end();
+        if (frame.getState() == World.WorldState.Playing || frame.getState() == World.WorldState.GameOver) {
+            // draw the cached score pad and fuel bar
+            hud.draw(batch, uiWidth, uiHeight);
         }
+        endBatch();
+    }
 
-        // renderDebug(world);
+    /**
+     * Draws a region of the world unless it lies outside of
+     * the camera's view, must be called between batch.begin()
+     * and batch.end()
+     */
+    private void draw(TextureRegion region, float x, float y, float width, float height) {
+        if (isVisible(x, y, width, height)) {
+            batch.draw(region, x, y, width, height);
+        }
     }
 
     /**
-     * Renderes the bounds of all objects for debugging
-     * @param world
+     * Checks a rectangle in world units against the camera's view
+     * and counts it as submitted or culled
+     * @return whether the rectangle is at least partially visible
      */
-    private void renderDebug(World world) {
-        Rectangle roboBounds = world.getRoboBounds();
-        shapeRenderer.setProjectionMatrix(worldCamera.combined);
-        shapeRenderer.begin(ShapeRenderer.ShapeType.Line);
-        shapeRenderer.rect(roboBounds.x, roboBounds.y, roboBounds.width, roboBounds.height);
-        for(Obstacle o: world.getObstacles()) {
-            Rectangle obstacleBounds = world.getObstacleBounds(o);
-            shapeRenderer.rect(obstacleBounds.x, obstacleBounds.y, obstacleBounds.width, obstacleBounds.height);
+    private boolean isVisible(float x, float y, float width, float height) {
+        if (x < viewBounds.x + viewBounds.width && x + width > viewBounds.x
+                && y < viewBounds.y + viewBounds.height && y + height > viewBounds.y) {
+            submittedSprites++;
+            return true;
         }
-        shapeRenderer.end();
+        culledSprites++;
+        return false;
+    }
+
+    /**
+     * Ends the batch, counting the flushes it took
+     */
+    private void endBatch() {
+        batch.end();
+        renderCalls += batch.renderCalls;
     }
 
-    @Override
-    public void hitObstacle() {
-        explosion.play();
+    /**
+     * @return the number of draw calls the last frame took, all
+     * drawing goes through the sprite batch
+     */
+    public int getRenderCalls() {
+        return renderCalls;
     }
 
-    @Override
-    public void hitFuel() {
-        fuelPickedUp.play();
+    /**
+     * @return the number of world sprites submitted to the batch in the last frame
+     */
+    public int getSubmittedSprites() {
+        return submittedSprites;
     }
 
-    @Override
-    public void outOfFuel() {
-        explosion.play();
+    /**
+     * @return the number of world sprites skipped in the last frame
+     * because they were outside of the camera's view
+     */
+    public int getCulledSprites() {
+        return culledSprites;
+    }
+
+    /**
+     * @param debug whether to draw the bounds of all objects
+     */
+    public void setDebug(boolean debug) {
+        this.debug = debug;
+    }
+
+    /**
+     * @return whether the bounds of all objects are drawn
+     */
+    public boolean isDebug() {
+        return debug;
     }
 
-    @Override
-    public void boosting() {
-        if(!thruster.isPlaying()) {
-            thruster.play();
+    /**
+     * Renderes the bounds of all objects for debugging,
+     * must be called between batch.begin() and batch.end()
+     * @param frame
+     */
+    private void renderDebug(RenderState frame) {
+        drawOutline(frame.getRoboBounds());
+        for(int i = 0; i < frame.getObstacleCount(); i++) {
+            drawOutline(frame.getObstacleVertices(), i * 8);
         }
+        drawOutline(frame.getFuelBounds());
     }
 
-    @Override
-    public void boostingOff() {
-        thruster.stop();
+    /**
+     * Draws the outline of a rectangle, one world unit wide,
+     * unless it lies outside of the camera's view
+     * @param r the rectangle
+     */
+    private void drawOutline(Rectangle r) {
+        if (!isVisible(r.x, r.y, r.width, r.height)) return;
+        batch.draw(whitePixel, r.x, r.y, r.width, 1);
+        batch.draw(whitePixel, r.x, r.y + r.height - 1, r.width, 1);
+        batch.draw(whitePixel, r.x, r.y, 1, r.height);
+        batch.draw(whitePixel, r.x + r.width - 1, r.y, 1, r.height);
+    }
+
+    /**
+     * Draws the outline of a quad, one world unit wide,
+     * unless it lies outside of the camera's view
+     * @param vertices the corners as x, y pairs, counter clockwise
+     * @param offset the index of the quad's first coordinate
+     */
+    private void drawOutline(float[] vertices, int offset) {
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+        for (int i = offset; i < offset + 8; i += 2) {
+            minX = Math.min(minX, vertices[i]);
+            maxX = Math.max(maxX, vertices[i]);
+            minY = Math.min(minY, vertices[i + 1]);
+            maxY = Math.max(maxY, vertices[i + 1]);
+        }
+        if (!isVisible(minX, minY, maxX - minX, maxY - minY)) return;
+
+        // each edge is the white pixel stretched to the edge's
+        // length and rotated around its start
+        for (int i = 0; i < 8; i += 2) {
+            float x1 = vertices[offset + i];
+            float y1 = vertices[offset + i + 1];
+            float x2 = vertices[offset + (i + 2) % 8];
+            float y2 = vertices[offset + (i + 3) % 8];
+            float length = (float)Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+            float degrees = MathUtils.atan2(y2 - y1, x2 - x1) * MathUtils.radiansToDegrees;
+            batch.draw(whitePixel, x1, y1, 0, 0, length, 1, 1, 1, degrees);
+        }
     }
 
     public void resize(int width, int height) {
         resizeUICamera(width, height);
+        hud.resize(uiWidth, width);
+    }
+
+    /**
+     * @return the cached score pad and fuel bar
+     */
+    public HudLayer getHud() {
+        return hud;
     }
 
     private void resizeUICamera(int width, int height) {
@@ -0,0 +1,77 @@
+package com.robovm.robomission;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Re-simulates a run recorded by a {@link ReplayRecorder}
+ * as fast as possible, without rendering or audio. Given
+ * the same recording, the resulting {@link World} always
+ * ends up in exactly the same state, e.g. to verify a
+ * score or to reproduce a death.
+ */
+public class ReplayPlayer {
+    /**
+     * Plays back a recording in a new world
+     * @param recording the recording, see {@link ReplayRecorder#toByteArray()}
+     * @return the world in the state at the end of the recording
+     */
+    public static World play(byte[] recording) {
+        ByteBuffer buffer = ByteBuffer.wrap(recording);
+        if (buffer.getInt() != ReplayRecorder.MAGIC) {
+            throw new GdxRuntimeException("Not a replay");
+        }
+        int version = buffer.get();
+        if (version != ReplayRecorder.VERSION) {
+            throw new GdxRuntimeException("Unsupported replay version " + version);
+        }
+        long seed = buffer.getLong();
+        int numObstacles = buffer.getInt();
+        int tickRate = buffer.getInt();
+
+        // Nobody drains the world's events, they are
+        // dropped once its event bus is full
+        World world = new World(NO_INPUT, numObstacles, new PackedObstacleStore(numObstacles));
+        world.setTickRate(tickRate);
+        world.restart(seed);
+
+        boolean touched = false;
+        while (true) {
+            // the touch state doesn't change in the ticks
+            // between two entries
+            int quietTicks = readVarInt(buffer);
+            for (int i = 0; i < quietTicks; i++) {
+                world.step(false, touched);
+            }
+
+            int flags = buffer.get() & 0xff;
+            if ((flags & ReplayRecorder.END) != 0) {
+                return world;
+            }
+            touched = (flags & ReplayRecorder.TOUCHED) != 0;
+            world.step((flags & ReplayRecorder.JUST_TOUCHED) != 0, touched);
+        }
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    private static final WorldInput NO_INPUT = new WorldInput() {
+        @Override
+        public boolean justTouched() {
+            return false;
+        }
+
+        @Override
+        public boolean isTouched() {
+            return false;
+        }
+    };
+}
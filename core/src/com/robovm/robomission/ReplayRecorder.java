@@ -0,0 +1,139 @@
+package com.robovm.robomission;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Records the input of a {@link World} run in a compact
+ * binary format, so the run can be re-simulated exactly
+ * by a {@link ReplayPlayer}.
+ *
+ * The format starts with a header (magic, version, run
+ * seed, number of obstacles, tick rate), followed by one
+ * entry per tick in which the input changed: the number
+ * of ticks since the previous entry as a varint and a
+ * flags byte. A final entry with the {@link #END} flag
+ * marks the number of ticks in the run.
+ */
+public class ReplayRecorder {
+    public static final int MAGIC = 0x524D5250;
+    public static final int VERSION = 4;
+    public static final int TOUCHED = 1;
+    public static final int JUST_TOUCHED = 2;
+    public static final int END = 0x80;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+    private int lastEntryTick;
+    private int ticks;
+    private boolean touched;
+    private boolean recording;
+    private byte[] finished;
+
+    /**
+     * Discards the current recording and starts a new run
+     * @param seed the seed of the run
+     * @param numObstacles the number of obstacles in the world
+     * @param tickRate the number of ticks per second
+     */
+    public void begin(long seed, int numObstacles, int tickRate) {
+        out.reset();
+        recording = true;
+        lastEntryTick = -1;
+        ticks = 0;
+        touched = false;
+
+        writeInt(MAGIC);
+        out.write(VERSION);
+        writeInt((int)(seed >>> 32));
+        writeInt((int)seed);
+        writeInt(numObstacles);
+        writeInt(tickRate);
+    }
+
+    /**
+     * Records the input of a tick. Only writes an entry if the
+     * touch state changed or the screen was tapped.
+     * @param tick the index of the tick within the run
+     * @param justTouched whether the user tapped the screen
+     * @param touched whether the user is holding down a finger on screen
+     */
+    public void record(int tick, boolean justTouched, boolean touched) {
+        if (!recording) return;
+        if (justTouched || touched != this.touched) {
+            writeEntry(tick, (touched ? TOUCHED : 0) | (justTouched ? JUST_TOUCHED : 0));
+            this.touched = touched;
+        }
+        ticks = tick + 1;
+    }
+
+    /**
+     * Stops recording the current run, e.g. because the world
+     * was restored from a {@link WorldSnapshot} in the middle
+     * of it. Recording resumes with the next {@link #begin(long, int, int)}.
+     */
+    public void abort() {
+        recording = false;
+        out.reset();
+    }
+
+    /**
+     * Ends the current run and keeps its recording until
+     * {@link #takeFinished()} is called, so starting the
+     * next run does not discard it. Called by the
+     * {@link World} when Robo crashes.
+     */
+    public void finish() {
+        if (!recording) return;
+        finished = toByteArray();
+        recording = false;
+    }
+
+    /**
+     * @return the recording of the last run that was finished, including the
+     * end marker, or null if none was finished since the last call
+     */
+    public byte[] takeFinished() {
+        byte[] result = finished;
+        finished = null;
+        return result;
+    }
+
+    /**
+     * @return whether a run is being recorded
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * @return the recording of the run so far, including the end marker
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(out.size() + 6);
+        byte[] recording = out.toByteArray();
+        result.write(recording, 0, recording.length);
+        writeVarInt(result, ticks - lastEntryTick - 1);
+        result.write(END);
+        return result.toByteArray();
+    }
+
+    private void writeEntry(int tick, int flags) {
+        writeVarInt(out, tick - lastEntryTick - 1);
+        out.write(flags);
+        lastEntryTick = tick;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private void writeInt(int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
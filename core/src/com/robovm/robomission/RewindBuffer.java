@@ -0,0 +1,71 @@
+package com.robovm.robomission;
+
+/**
+ * Keeps the last two {@link WorldSnapshot}s of the current
+ * run, taken a fixed number of ticks apart while playing, so
+ * a run can be rewound a few seconds, e.g. after a crash.
+ * Rewinding goes to the older snapshot, so Robo always gets
+ * at least one interval before the point of the crash.
+ */
+public class RewindBuffer {
+    private final int intervalTicks;
+    private WorldSnapshot newer;
+    private WorldSnapshot older;
+    private int captured;
+    private long runSeed;
+    private int nextCaptureTick;
+
+    /**
+     * @param world the world to size the snapshots for
+     * @param intervalTicks the number of ticks between snapshots
+     */
+    public RewindBuffer(World world, int intervalTicks) {
+        this.intervalTicks = intervalTicks;
+        this.newer = new WorldSnapshot(world);
+        this.older = new WorldSnapshot(world);
+    }
+
+    /**
+     * Takes a snapshot if the interval passed, call once per frame
+     * @param world the world
+     */
+    public void update(World world) {
+        if (world.getState() != World.WorldState.Playing) return;
+
+        // forget the snapshots of earlier runs
+        if (world.getRunSeed() != runSeed || world.getRunTicks() < nextCaptureTick - intervalTicks) {
+            runSeed = world.getRunSeed();
+            captured = 0;
+            nextCaptureTick = 0;
+        }
+        if (world.getRunTicks() >= nextCaptureTick) {
+            WorldSnapshot snapshot = older;
+            older = newer;
+            newer = snapshot;
+            newer.capture(world);
+            captured++;
+            nextCaptureTick = world.getRunTicks() + intervalTicks;
+        }
+    }
+
+    /**
+     * Restores the older snapshot of the current run
+     * @param world the world
+     * @return whether there was a snapshot to restore
+     */
+    public boolean rewind(World world) {
+        if (captured == 0 || world.getRunSeed() != runSeed) return false;
+
+        // the newer snapshot lies in the future of the
+        // restored one, drop it
+        if (captured > 1) {
+            WorldSnapshot snapshot = newer;
+            newer = older;
+            older = snapshot;
+        }
+        captured = 1;
+        newer.restore(world);
+        nextCaptureTick = world.getRunTicks() + intervalTicks;
+        return true;
+    }
+}
@@ -4,21 +4,45 @@ import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool;
 
 /**
  * Represents Robo, our main protagonist. Robo
  * has a position and velocity. We also store
  * the amount of time Robo's been flying so far.
- * This is used for animation purposes.
+ * This is used for animation purposes. Robo
+ * is recycled between runs, see {@link EntityPool}.
  */
-public class Robo {
+public class Robo implements Pool.Poolable {
     private final Vector2 position = new Vector2();
+    private final Vector2 previousPosition = new Vector2();
     private final Vector2 velocity = new Vector2();
     private float stateTime = 0;
     private float fuel = 100;
 
+    public Robo() {
+    }
+
     public Robo(float x, float y) {
+        place(x, y);
+    }
+
+    /**
+     * Moves Robo to the given position without
+     * interpolating from the old one
+     */
+    public void place(float x, float y) {
         this.position.set(x, y);
+        this.previousPosition.set(x, y);
+    }
+
+    @Override
+    public void reset() {
+        position.setZero();
+        previousPosition.setZero();
+        velocity.setZero();
+        stateTime = 0;
+        fuel = 100;
     }
 
     /**
@@ -28,6 +52,13 @@ public class Robo {
         return position;
     }
 
+    /**
+     * @return the position of the bottom left corner of Robo at the start of the last tick
+     */
+    public Vector2 getPreviousPosition() {
+        return previousPosition;
+    }
+
     /**
      * @return the velocity measured in world units per second
      */
@@ -51,6 +82,13 @@ public class Robo {
         this.stateTime += delta;
     }
 
+    /**
+     * @param stateTime the number of seconds Robo has been flying
+     */
+    public void setStateTime(float stateTime) {
+        this.stateTime = stateTime;
+    }
+
     /**
      * @return fuel amount, 0 to 100
      */
@@ -58,6 +96,13 @@ public class Robo {
         return fuel;
     }
 
+    /**
+     * @param fuel the fuel amount, 0 to 100
+     */
+    public void setFuel(float fuel) {
+        this.fuel = fuel;
+    }
+
     /**
      * @param fuel fuel to add
      */
@@ -2,19 +2,69 @@ package com.robovm.robomission;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.InputMultiplexer;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.GL20;
 
 public class RoboMission extends ApplicationAdapter {
+    // The maximum time in milliseconds we spend on loading
+    // assets per frame, so the screen stays responsive
+    private static final int LOADING_BUDGET_MILLIS = 15;
+
+    // The input of the last run is saved here when it ends,
+    // so deaths can be reproduced with a ReplayPlayer
+    private static final String LAST_RUN_REPLAY = "last-run.replay";
+
+    // Frame metrics are dumped here, see FrameProfiler
+    private static final String FRAME_METRICS = "frame-metrics.txt";
+
+    // A run in progress is saved here when the app is paused
+    // and picked up again on the next start
+    private static final String SAVED_RUN = "saved-run.snapshot";
+
+    // Snapshots to rewind to are taken this many ticks apart
+    private static final int REWIND_INTERVAL_TICKS = 180;
+
+    private StartupTimer startupTimer;
+    private AssetManager assets;
+    private LoadingScreen loadingScreen;
+    private boolean deferredAssetsLoaded;
+    private boolean firstFrameRendered;
+    private TouchQueue touches;
     private World world;
+    private WorldPipeline pipeline;
     private Renderer renderer;
+    private AudioMixer mixer;
+    private ReplayRecorder recorder;
+    private RewindBuffer rewindBuffer;
+    private final FrameProfiler profiler = new FrameProfiler();
+    private ProfilerOverlay profilerOverlay;
+    private final FramePacer pacer;
+
+    public RoboMission() {
+        this(new FramePacer());
+    }
+
+    /**
+     * @param pacer lowers the render rate while the game is
+     * idle, set up by the launcher for its platform
+     */
+    public RoboMission(FramePacer pacer) {
+        this.pacer = pacer;
+    }
 
     @Override
     public void create() {
-        // create our initial renderer
-        renderer = new Renderer();
+        startupTimer = new StartupTimer();
+        Gdx.input.setInputProcessor(pacer);
 
-        // create our initial world
-        world = new World(renderer);
+        // start loading the assets needed for the first frame
+        // of the game, we show a loading screen in the meantime
+        assets = new AssetManager();
+        Assets.queueCritical(assets);
+        loadingScreen = new LoadingScreen();
+        startupTimer.mark("created");
     }
 
     @Override
@@ -23,15 +73,212 @@ public class RoboMission extends ApplicationAdapter {
         Gdx.gl.glClearColor(1, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
-        // Update the world based on user input
-        world.update();
+        // Load the critical assets, then create the game and
+        // keep loading the remaining assets in the background
+        if (renderer == null) {
+            if (!assets.update(LOADING_BUDGET_MILLIS)) {
+                loadingScreen.render(assets.getProgress());
+                return;
+            }
+            startupTimer.mark("critical assets loaded");
+            loadingScreen.dispose();
+            loadingScreen = null;
+            Assets.queueDeferred(assets);
+
+            // create our initial renderer
+            renderer = new Renderer(assets);
+
+            // create our initial world, reacting to touches
+            // on the screen at the tick they happened and
+            // playing its events through the mixer
+            mixer = new AudioMixer();
+            touches = new TouchQueue();
+            Gdx.input.setInputProcessor(new InputMultiplexer(pacer, touches));
+            world = new World(touches);
+            world.getEvents().subscribe(mixer);
+            world.getLevel().startProducer();
+            recorder = new ReplayRecorder();
+            world.setRecorder(recorder);
+            rewindBuffer = new RewindBuffer(world, REWIND_INTERVAL_TICKS);
+            restoreRun();
+
+            // on devices with more than one core the world is
+            // updated while the last frame is rendered
+            pipeline = new WorldPipeline(world, Runtime.getRuntime().availableProcessors() > 1);
+        } else if (!deferredAssetsLoaded && assets.update(LOADING_BUDGET_MILLIS)) {
+            deferredAssetsLoaded = true;
+            startupTimer.mark("deferred assets loaded");
+        }
+
+        // Wait for the update of the last frame, if it runs
+        // on the worker. From here on until the next update
+        // is submitted we may touch the world
+        profiler.beginFrame();
+        profiler.beginUpdate();
+        pipeline.sync();
+
+        // F3 toggles the profiler overlay, F4 dumps the frame
+        // metrics, F5 toggles drawing the bounds of objects and
+        // F6 rewinds a crashed run
+        handleDebugKeys();
+
+        // Save the replay of the run that ended, the world
+        // finished it even if the next run already started
+        saveReplay();
+        rewindBuffer.update(world);
+
+        // Update the world based on user input, the world
+        // simulates in fixed ticks internally and applies
+        // touches up to now at the ticks they happened in
+        touches.latch();
+        pipeline.submit(Gdx.graphics.getDeltaTime());
+        profiler.endUpdate();
+
+        // Pass the events published so far on to the listeners
+        // and play the resulting audio, the event bus may be
+        // drained while the world is updated
+        world.getEvents().drain();
+        mixer.update(assets);
+        mixer.flush(Gdx.graphics.getDeltaTime());
+        profiler.setAudioCallsPerSecond(mixer.getNativeCallsPerSecond());
+        float inputLatency = touches.pollLatencyMillis();
+        if (inputLatency >= 0) {
+            profiler.addInputLatency(inputLatency);
+        }
+
+        // Render the world and UI, interpolating between
+        // the last two simulation ticks
+        RenderState frame = pipeline.getFrame();
+        profiler.beginRender();
+        renderer.render(frame);
+        profiler.endRender(renderer.getRenderCalls());
+        profiler.setSprites(renderer.getSubmittedSprites(), renderer.getCulledSprites());
+        profiler.endFrame();
+
+        if (profilerOverlay != null) {
+            profilerOverlay.render(profiler);
+        }
+
+        // Render at a lower rate while nothing but animations
+        // change, unless we are profiling
+        if (profilerOverlay == null) {
+            pacer.update(frame.getState(), Gdx.graphics.getDeltaTime());
+        } else {
+            pacer.wake();
+        }
 
-        // Render the world and UI
-        renderer.render(world);
+        if (!firstFrameRendered) {
+            firstFrameRendered = true;
+            startupTimer.mark("first interactive frame");
+        }
+    }
+
+    private void handleDebugKeys() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            if (profilerOverlay == null) {
+                profilerOverlay = new ProfilerOverlay();
+                profilerOverlay.resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+                profiler.setGLProfilingEnabled(true);
+            } else {
+                profilerOverlay.dispose();
+                profilerOverlay = null;
+                profiler.setGLProfilingEnabled(false);
+            }
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F4)) {
+            dumpFrameMetrics();
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F5)) {
+            renderer.setDebug(!renderer.isDebug());
+            pipeline.setCollisionBounds(renderer.isDebug());
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F6) && world.getState() == World.WorldState.GameOver) {
+            rewindBuffer.rewind(world);
+        }
+    }
+
+    private void dumpFrameMetrics() {
+        if (Gdx.files.isLocalStorageAvailable()) {
+            profiler.dump(Gdx.files.local(FRAME_METRICS));
+            Gdx.app.log("RoboMission", "Frame metrics written to " + FRAME_METRICS);
+        }
+    }
+
+    private void saveReplay() {
+        byte[] replay = recorder.takeFinished();
+        if (replay != null && Gdx.files.isLocalStorageAvailable()) {
+            Gdx.files.local(LAST_RUN_REPLAY).writeBytes(replay, false);
+        }
     }
 
     @Override
     public void resize(int width, int height) {
-        renderer.resize(width, height);
+        if (renderer != null) {
+            renderer.resize(width, height);
+        }
+        if (profilerOverlay != null) {
+            profilerOverlay.resize(width, height);
+        }
+    }
+
+    /**
+     * Saves the run in progress, so closing the app in the
+     * middle of a run does not lose it
+     */
+    private void saveRun() {
+        if (!Gdx.files.isLocalStorageAvailable()) return;
+        if (world.getState() == World.WorldState.Playing) {
+            WorldSnapshot snapshot = new WorldSnapshot(world);
+            snapshot.capture(world);
+            snapshot.save(Gdx.files.local(SAVED_RUN));
+        } else {
+            Gdx.files.local(SAVED_RUN).delete();
+        }
+    }
+
+    /**
+     * Continues the run saved by {@link #saveRun()}, if any
+     */
+    private void restoreRun() {
+        if (!Gdx.files.isLocalStorageAvailable() || !Gdx.files.local(SAVED_RUN).exists()) return;
+        try {
+            WorldSnapshot.load(Gdx.files.local(SAVED_RUN)).restore(world);
+        } catch (RuntimeException e) {
+            // e.g. saved by an older version, start a new run instead
+            Gdx.app.error("RoboMission", "Could not restore the saved run", e);
+            world.restart(world.getRunSeed());
+        }
+        Gdx.files.local(SAVED_RUN).delete();
+    }
+
+    @Override
+    public void pause() {
+        // keep the metrics of the session that is being
+        // paused while profiling
+        if (profilerOverlay != null) {
+            dumpFrameMetrics();
+        }
+        if (world != null) {
+            pipeline.sync();
+            saveRun();
+        }
+    }
+
+    @Override
+    public void resume() {
+        // the GL context may have been lost while paused, the
+        // HUD's frame buffer is recreated empty and has to be
+        // drawn again even if score and fuel didn't change
+        if (renderer != null) {
+            renderer.getHud().invalidate();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (world != null) {
+            pipeline.dispose();
+            world.getLevel().stopProducer();
+        }
     }
-}
\ No newline at end of file
+}
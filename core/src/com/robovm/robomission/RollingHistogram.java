@@ -0,0 +1,89 @@
+package com.robovm.robomission;
+
+/**
+ * A histogram of the last N samples of a duration given in
+ * milliseconds. Samples fall into buckets of 0.1ms up to
+ * {@link #MAX_MILLIS}, longer samples go into the last bucket.
+ * Adding a sample evicts the oldest one once the window is
+ * full, both in constant time and without allocating.
+ */
+public class RollingHistogram {
+    public static final float BUCKET_MILLIS = 0.1f;
+    public static final float MAX_MILLIS = 100;
+    private static final int NUM_BUCKETS = (int)(MAX_MILLIS / BUCKET_MILLIS) + 1;
+
+    private final int[] buckets = new int[NUM_BUCKETS];
+    private final float[] samples;
+    private int next;
+    private int size;
+
+    /**
+     * @param window the number of samples to keep
+     */
+    public RollingHistogram(int window) {
+        this.samples = new float[window];
+    }
+
+    /**
+     * @param millis the duration in milliseconds
+     */
+    public void add(float millis) {
+        if (size == samples.length) {
+            buckets[bucket(samples[next])]--;
+        } else {
+            size++;
+        }
+        samples[next] = millis;
+        buckets[bucket(millis)]++;
+        next = (next + 1) % samples.length;
+    }
+
+    /**
+     * @param percentile the percentile, 0 to 100
+     * @return the upper bound of the bucket containing the percentile in milliseconds, 0 if empty
+     */
+    public float getPercentile(float percentile) {
+        if (size == 0) return 0;
+        int rank = (int)Math.ceil(percentile / 100 * size);
+        int count = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            count += buckets[i];
+            if (count >= rank) return (i + 1) * BUCKET_MILLIS;
+        }
+        return MAX_MILLIS;
+    }
+
+    /**
+     * @param index the index of the sample, 0 being the oldest
+     * @return the sample in milliseconds
+     */
+    public float getSample(int index) {
+        return samples[(next - size + index + samples.length) % samples.length];
+    }
+
+    /**
+     * @param bucket the index of the bucket
+     * @return the number of samples in the bucket
+     */
+    public int getBucketCount(int bucket) {
+        return buckets[bucket];
+    }
+
+    /**
+     * @return the number of buckets
+     */
+    public int getNumBuckets() {
+        return NUM_BUCKETS;
+    }
+
+    /**
+     * @return the number of samples in the window
+     */
+    public int getSize() {
+        return size;
+    }
+
+    private static int bucket(float millis) {
+        return Math.min(NUM_BUCKETS - 1, Math.max(0, (int)(millis / BUCKET_MILLIS)));
+    }
+}
@@ -0,0 +1,60 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.StringBuilder;
+
+/**
+ * Draws a number centered on a position. The glyph
+ * vertices are cached and only laid out again when the
+ * number or position changes, so drawing an unchanged
+ * label does not generate any garbage.
+ */
+public class ScoreLabel {
+    private final BitmapFontCache cache;
+
+    // We format the number into a libGDX StringBuilder,
+    // which can append ints without allocating
+    private final StringBuilder text = new StringBuilder(12);
+
+    private boolean valid = false;
+    private int value;
+    private float centerX;
+    private float centerY;
+
+    public ScoreLabel(BitmapFont font) {
+        this.cache = font.newFontCache();
+    }
+
+    /**
+     * Sets the number and position of the label, lays
+     * it out only if one of them changed
+     * @param value the number to display
+     * @param centerX the x coordinate of the center of the label
+     * @param centerY the y coordinate of the center of the label
+     */
+    public void set(int value, float centerX, float centerY) {
+        if (valid && value == this.value && centerX == this.centerX && centerY == this.centerY) {
+            return;
+        }
+        this.valid = true;
+        this.value = value;
+        this.centerX = centerX;
+        this.centerY = centerY;
+
+        text.setLength(0);
+        text.append(value);
+        GlyphLayout layout = cache.setText(text, 0, 0);
+        cache.setPosition(centerX - layout.width / 2, centerY + layout.height / 2);
+    }
+
+    /**
+     * Draws the cached glyphs
+     * @param batch the batch, must be between begin() and end()
+     */
+    public void draw(SpriteBatch batch) {
+        cache.draw(batch);
+    }
+}
@@ -0,0 +1,143 @@
+package com.robovm.robomission;
+
+import java.util.Arrays;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * A uniform grid along the x-axis, used as the broad phase
+ * for collision detection. The world scrolls horizontally,
+ * so we only partition along x. Cells wrap around, entities
+ * far apart may share a cell, but queries filter those out.
+ *
+ * Entities are identified by an int handle encoding their
+ * kind and index, see {@link #handle(int, int)}. Cell contents
+ * are kept as linked lists in plain int arrays, so inserting
+ * and querying do not allocate once the arrays are big enough.
+ */
+public class SpatialGrid {
+    // Kinds of entities stored in the grid
+    public static final int OBSTACLE = 0;
+    public static final int FUEL = 1;
+    private static final int KIND_BITS = 2;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    private final float cellSize;
+    private final int cellMask;
+    private final int[] cellHeads;
+
+    // Per entry: the next entry in the same cell, the entity
+    // handle and the first and last cell the entity covers
+    private int[] next = new int[16];
+    private int[] handles = new int[16];
+    private int[] firstCells = new int[16];
+    private int[] lastCells = new int[16];
+    private int numEntries;
+
+    /**
+     * @param cellSize the width of a cell in world units, should be larger than most entities
+     * @param numCells the number of cells, rounded up to the next power of two
+     */
+    public SpatialGrid(float cellSize, int numCells) {
+        this.cellSize = cellSize;
+        this.cellHeads = new int[MathUtils.nextPowerOfTwo(numCells)];
+        this.cellMask = cellHeads.length - 1;
+        clear();
+    }
+
+    /**
+     * @param kind the kind of the entity, e.g. {@link #OBSTACLE}
+     * @param index the index of the entity among entities of its kind
+     * @return the handle of the entity
+     */
+    public static int handle(int kind, int index) {
+        return index << KIND_BITS | kind;
+    }
+
+    /**
+     * @param handle the handle of an entity
+     * @return the kind of the entity
+     */
+    public static int kind(int handle) {
+        return handle & KIND_MASK;
+    }
+
+    /**
+     * @param handle the handle of an entity
+     * @return the index of the entity among entities of its kind
+     */
+    public static int index(int handle) {
+        return handle >>> KIND_BITS;
+    }
+
+    /**
+     * Removes all entities
+     */
+    public void clear() {
+        Arrays.fill(cellHeads, -1);
+        numEntries = 0;
+    }
+
+    /**
+     * Adds an entity to all cells it covers
+     * @param handle the handle of the entity
+     * @param minX the left edge of the entity
+     * @param maxX the right edge of the entity
+     */
+    public void insert(int handle, float minX, float maxX) {
+        int firstCell = cell(minX);
+        int lastCell = cell(maxX);
+        int numCells = Math.min(lastCell - firstCell + 1, cellHeads.length);
+        for (int i = 0; i < numCells; i++) {
+            int entry = numEntries++;
+            if (entry == next.length) grow();
+            int cell = (firstCell + i) & cellMask;
+            next[entry] = cellHeads[cell];
+            handles[entry] = handle;
+            firstCells[entry] = firstCell;
+            lastCells[entry] = lastCell;
+            cellHeads[cell] = entry;
+        }
+    }
+
+    /**
+     * Finds all entities whose x-range overlaps the given range.
+     * Each entity is reported once.
+     * @param minX the left edge of the range
+     * @param maxX the right edge of the range
+     * @param result receives the handles of the entities, cleared first
+     */
+    public void query(float minX, float maxX, IntArray result) {
+        result.clear();
+        int firstCell = cell(minX);
+        int lastCell = cell(maxX);
+        int numCells = Math.min(lastCell - firstCell + 1, cellHeads.length);
+        for (int i = 0; i < numCells; i++) {
+            int cell = firstCell + i;
+            for (int entry = cellHeads[cell & cellMask]; entry != -1; entry = next[entry]) {
+                // skip entities that only share the cell because
+                // the grid wrapped around
+                if (lastCells[entry] < firstCell || firstCells[entry] > lastCell) continue;
+
+                // entities covering several cells are reported in
+                // the first cell shared with the range only
+                if (Math.max(firstCells[entry], firstCell) != cell) continue;
+
+                result.add(handles[entry]);
+            }
+        }
+    }
+
+    private int cell(float x) {
+        return MathUtils.floor(x / cellSize);
+    }
+
+    private void grow() {
+        int size = next.length * 2;
+        next = Arrays.copyOf(next, size);
+        handles = Arrays.copyOf(handles, size);
+        firstCells = Arrays.copyOf(firstCells, size);
+        lastCells = Arrays.copyOf(lastCells, size);
+    }
+}
@@ -0,0 +1,23 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Logs the time of startup milestones relative to the
+ * moment the application was created, tagged with the
+ * platform, so cold start can be compared across devices.
+ */
+public class StartupTimer {
+    private static final String TAG = "Startup";
+    private final long startTime = TimeUtils.nanoTime();
+
+    /**
+     * Logs a milestone
+     * @param milestone the name of the milestone
+     */
+    public void mark(String milestone) {
+        float millis = (TimeUtils.nanoTime() - startTime) / 1000000f;
+        Gdx.app.log(TAG, Gdx.app.getType() + " " + milestone + ": " + millis + "ms");
+    }
+}
@@ -0,0 +1,151 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Continuous collision tests for a moving axis aligned
+ * rectangle against static shapes. Testing only where an
+ * object ends up after a tick lets fast objects or long
+ * ticks skip over thin obstacles, sweeping the rectangle
+ * along its displacement gives the time of impact instead.
+ * Times are fractions of the displacement, 0 to 1.
+ *
+ * The tests use the separating axis theorem: two convex
+ * shapes overlap while their projections overlap on every
+ * axis, for a rectangle and a box these are the edge
+ * normals of both. Per axis the projections overlap during
+ * an interval of the sweep, the shapes collide during the
+ * intersection of all intervals.
+ */
+public class SweptCollision {
+    // Returned if the shapes don't touch during the sweep
+    public static final float NO_IMPACT = Float.POSITIVE_INFINITY;
+
+    /**
+     * Sweeps a rectangle against a static one. Rectangles
+     * only touching at their edges do not collide, same as
+     * {@link Rectangle#overlaps(Rectangle)}.
+     * @param moving the moving rectangle at the start of the sweep
+     * @param dx the displacement along x
+     * @param dy the displacement along y
+     * @param target the static rectangle
+     * @return the time of impact, 0 if the rectangles overlap at
+     * the start, or {@link #NO_IMPACT}
+     */
+    public static float timeOfImpact(Rectangle moving, float dx, float dy, Rectangle target) {
+        float distance = target.x + target.width / 2 - (moving.x + moving.width / 2);
+        float radius = (target.width + moving.width) / 2;
+        float entry = entry(distance, radius, dx);
+        float exit = exit(distance, radius, dx);
+
+        distance = target.y + target.height / 2 - (moving.y + moving.height / 2);
+        radius = (target.height + moving.height) / 2;
+        entry = Math.max(entry, entry(distance, radius, dy));
+        exit = Math.min(exit, exit(distance, radius, dy));
+        return impact(entry, exit);
+    }
+
+    /**
+     * Sweeps a rectangle against a static rotated box. The box's
+     * axis aligned bounds are tested first, they are the box's
+     * extent along the x- and y-axis, so most boxes are rejected
+     * before we look at the box's own axes.
+     * @param moving the moving rectangle at the start of the sweep
+     * @param dx the displacement along x
+     * @param dy the displacement along y
+     * @param box the static box
+     * @return the time of impact, 0 if the shapes overlap at
+     * the start, or {@link #NO_IMPACT}
+     */
+    public static float timeOfImpact(Rectangle moving, float dx, float dy, OrientedBox box) {
+        float halfWidth = moving.width / 2;
+        float halfHeight = moving.height / 2;
+        float centerDx = box.getCenterX() - (moving.x + halfWidth);
+        float centerDy = box.getCenterY() - (moving.y + halfHeight);
+        Rectangle bounds = box.getBounds();
+
+        // The x- and y-axis
+        float radius = bounds.width / 2 + halfWidth;
+        float entry = entry(centerDx, radius, dx);
+        float exit = exit(centerDx, radius, dx);
+        radius = bounds.height / 2 + halfHeight;
+        entry = Math.max(entry, entry(centerDy, radius, dy));
+        exit = Math.min(exit, exit(centerDy, radius, dy));
+        if (impact(entry, exit) == NO_IMPACT) return NO_IMPACT;
+
+        // The box's x-axis (cos, sin) and y-axis (-sin, cos)
+        float cos = box.getCos();
+        float sin = box.getSin();
+        float distance = centerDx * cos + centerDy * sin;
+        radius = box.getHalfWidth() + halfWidth * Math.abs(cos) + halfHeight * Math.abs(sin);
+        float velocity = dx * cos + dy * sin;
+        entry = Math.max(entry, entry(distance, radius, velocity));
+        exit = Math.min(exit, exit(distance, radius, velocity));
+
+        distance = centerDy * cos - centerDx * sin;
+        radius = box.getHalfHeight() + halfWidth * Math.abs(sin) + halfHeight * Math.abs(cos);
+        velocity = dy * cos - dx * sin;
+        entry = Math.max(entry, entry(distance, radius, velocity));
+        exit = Math.min(exit, exit(distance, radius, velocity));
+        return impact(entry, exit);
+    }
+
+    /**
+     * @param distance the distance between the projected centers along the axis
+     * @param radius the sum of the projected half extents
+     * @param velocity the projected displacement
+     * @return the time the projections start overlapping
+     */
+    private static float entry(float distance, float radius, float velocity) {
+        if (velocity == 0) {
+            return Math.abs(distance) < radius ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+        }
+        return Math.min((distance - radius) / velocity, (distance + radius) / velocity);
+    }
+
+    /**
+     * @param distance the distance between the projected centers along the axis
+     * @param radius the sum of the projected half extents
+     * @param velocity the projected displacement
+     * @return the time the projections stop overlapping
+     */
+    private static float exit(float distance, float radius, float velocity) {
+        if (velocity == 0) {
+            return Math.abs(distance) < radius ? Float.POSITIVE_INFINITY : Float.NEGATIVE_INFINITY;
+        }
+        return Math.max((distance - radius) / velocity, (distance + radius) / velocity);
+    }
+
+    private static float impact(float entry, float exit) {
+        if (entry >= exit || entry >= 1 || exit <= 0) return NO_IMPACT;
+        return Math.max(entry, 0);
+    }
+
+    /**
+     * Sweeps a coordinate against a limit it must stay above
+     * @param start the coordinate at the start of the sweep
+     * @param end the coordinate at the end of the sweep
+     * @param limit the lowest allowed value, exclusive
+     * @return the time the coordinate drops below the limit, 0 if
+     * it starts below it, or {@link #NO_IMPACT}
+     */
+    public static float timeBelow(float start, float end, float limit) {
+        if (end >= limit) return NO_IMPACT;
+        if (start < limit) return 0;
+        return (start - limit) / (start - end);
+    }
+
+    /**
+     * Sweeps a coordinate against a limit it must stay below
+     * @param start the coordinate at the start of the sweep
+     * @param end the coordinate at the end of the sweep
+     * @param limit the highest allowed value, exclusive
+     * @return the time the coordinate rises above the limit, 0 if
+     * it starts above it, or {@link #NO_IMPACT}
+     */
+    public static float timeAbove(float start, float end, float limit) {
+        if (end <= limit) return NO_IMPACT;
+        if (start > limit) return 0;
+        return (limit - start) / (end - start);
+    }
+}
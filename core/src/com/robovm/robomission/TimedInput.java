@@ -0,0 +1,18 @@
+package com.robovm.robomission;
+
+/**
+ * {@link WorldInput} that knows when touches happened. The
+ * {@link World} advances it before every tick, it then
+ * reports the touch state at the end of that tick instead
+ * of the state sampled once per frame, so taps shorter than
+ * a frame are kept and touches start at the exact tick.
+ */
+public interface TimedInput extends WorldInput {
+    /**
+     * Consumes the touches that happened up to the end of the
+     * next tick
+     * @param lag the time in seconds from the end of the tick
+     * to the end of the frame being simulated
+     */
+    void advance(float lag);
+}
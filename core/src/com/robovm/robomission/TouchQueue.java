@@ -0,0 +1,160 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Records touch down and up events with the time they
+ * happened and hands them to the {@link World} at the tick
+ * they fall into, see {@link TimedInput}. Register the
+ * queue as input processor, it never consumes events.
+ *
+ * Events are stored in a preallocated ring buffer. The
+ * rendering thread publishes events, the thread updating
+ * the world consumes them, the two only share the volatile
+ * {@link #published} and {@link #consumed} counters, so the
+ * world may be updated on a {@link WorldPipeline} worker
+ * while new events come in. If the ring is full new events
+ * are dropped.
+ *
+ * The queue also measures the input latency: the time from
+ * a touch down to the tick that applies it, i.e. the tick
+ * Robo starts thrusting in.
+ */
+public class TouchQueue extends InputAdapter implements TimedInput {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // Backends stamp events with different clocks, stamps
+    // from the future or older than this many nanoseconds
+    // can't come from ours and are replaced by the time
+    // the event is processed
+    private static final long MAX_EVENT_AGE = 1000000000;
+
+    private final long[] times;
+    private final boolean[] downs;
+    private final int mask;
+    private volatile int published;
+    private volatile int consumed;
+
+    // Written by the rendering thread
+    private int dropped;
+    private long frameTime;
+    private int polledLatencies;
+
+    // Written by the thread updating the world
+    private int pointers;
+    private boolean downInTick;
+    private boolean justTouched;
+    private volatile long latency;
+    private volatile int latencies;
+
+    public TouchQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of events that can be pending, rounded up to a power of two
+     */
+    public TouchQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        times = new long[size];
+        downs = new boolean[size];
+        mask = size - 1;
+    }
+
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        publish(true);
+        return false;
+    }
+
+    @Override
+    public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+        publish(false);
+        return false;
+    }
+
+    private void publish(boolean down) {
+        int index = published;
+        if (index - consumed == times.length) {
+            dropped++;
+            return;
+        }
+        long now = TimeUtils.nanoTime();
+        long time = Gdx.input.getCurrentEventTime();
+        if (time > now || now - time > MAX_EVENT_AGE) {
+            time = now;
+        }
+        times[index & mask] = time;
+        downs[index & mask] = down;
+        published = index + 1;
+    }
+
+    /**
+     * Marks the end of the frame the world is about to be
+     * updated for. Touches after it are left for the next
+     * frame. Call on the rendering thread before submitting
+     * the update, see {@link WorldPipeline#submit(float)}.
+     */
+    public void latch() {
+        frameTime = TimeUtils.nanoTime();
+    }
+
+    @Override
+    public void advance(float lag) {
+        long tickEnd = frameTime - (long)(lag * 1000000000L);
+        int index = consumed;
+        int last = published;
+        downInTick = false;
+        while (index != last && times[index & mask] <= tickEnd) {
+            if (downs[index & mask]) {
+                pointers++;
+                downInTick = true;
+                justTouched = true;
+                latency = TimeUtils.nanoTime() - times[index & mask];
+                latencies++;
+            } else if (pointers > 0) {
+                pointers--;
+            }
+            index++;
+        }
+        consumed = index;
+    }
+
+    @Override
+    public boolean justTouched() {
+        boolean result = justTouched;
+        justTouched = false;
+        return result;
+    }
+
+    /**
+     * @return whether a finger was down at the end of the tick, or
+     * touched the screen during it, so even the shortest tap
+     * thrusts for a tick
+     */
+    @Override
+    public boolean isTouched() {
+        return pointers > 0 || downInTick;
+    }
+
+    /**
+     * Call on the rendering thread
+     * @return the input latency in milliseconds of the last touch
+     * applied since the last call, or -1 if there was none
+     */
+    public float pollLatencyMillis() {
+        int count = latencies;
+        if (count == polledLatencies) return -1;
+        polledLatencies = count;
+        return latency / 1000000f;
+    }
+
+    /**
+     * @return the number of events dropped because the queue was full
+     */
+    public int getDropped() {
+        return dropped;
+    }
+}
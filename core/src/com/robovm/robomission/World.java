@@ -1,10 +1,13 @@
 package com.robovm.robomission;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.nio.ByteBuffer;
 
 /**
  * The World keeps track of all objects in the game. It
@@ -20,9 +23,14 @@ public class World {
         GameOver
     }
 
+    // values() clones the array, restoring a snapshot
+    // looks states up in this copy instead
+    private static final WorldState[] STATES = WorldState.values();
+
     // A couple of constants used to move Robo
-    // in a physically appealing way
-    public static final float GRAVITY = -15;
+    // in a physically appealing way. Gravity is
+    // given in world units per second squared
+    public static final float GRAVITY = -900;
     public static final float FUEL_BURN_PER_SECOND = 25;
     public static final float ROBO_VELOCITY_X = 200;
     public static final float ROBO_START_Y = 240;
@@ -33,38 +41,176 @@ public class World {
     public static final float OBSTACLE_WIDTH = 180 / 2;
     public static final float OBSTACLE_HEIGHT = 219 / 2;
     public static final float OBSTACLE_DISTANCE = 250;
+    // The collision box of an obstacle, centered on its
+    // sprite and spinning with it
+    public static final float OBSTACLE_BOX_WIDTH = OBSTACLE_WIDTH - 30;
+    public static final float OBSTACLE_BOX_HEIGHT = OBSTACLE_HEIGHT - 40;
+    // How far the collision box reaches from its center at
+    // any rotation, half its diagonal
+    public static final float OBSTACLE_BOX_REACH = (float)Math.sqrt(OBSTACLE_BOX_WIDTH * OBSTACLE_BOX_WIDTH + OBSTACLE_BOX_HEIGHT * OBSTACLE_BOX_HEIGHT) / 2;
     public static final float FUEL_WIDTH = 100 / 2;
     public static final float FUEL_HEIGHT = 100 / 2;
+    public static final int NUM_OBSTACLES = 5;
+    public static final float GRID_CELL_SIZE = 256;
+
+    // The simulation runs at a fixed number of ticks per
+    // second, independent of the rate we render at. If a
+    // frame takes very long we only catch up a limited
+    // number of ticks and drop the rest of the time.
+    public static final int DEFAULT_TICK_RATE = 60;
+    public static final int DEFAULT_MAX_STEPS_PER_FRAME = 5;
+
+    // Events in the world are published here and passed
+    // on to listeners after the tick
+    private final WorldEventBus events = new WorldEventBus();
+
+    // Whether the last published boost event was BoostOn
+    private boolean boosting;
 
-    // Callback invoked to inform outside of events in the world
-    private final WorldCallback callback;
+    // The touch state we react to
+    private final WorldInput input;
+    private final TimedInput timedInput;
+
+    // The number of obstacles we keep in the world
+    private final int numObstacles;
 
     // The objects in the world
     private Robo robo;
-    private final Array<Obstacle> obstacles = new Array<Obstacle>();
+    private final ObstacleStore obstacles;
     private Fuel fuel;
 
+    // Robo and the fuel are recycled between runs so
+    // restarting does not allocate
+    private final EntityPool<Robo> roboPool = new EntityPool<Robo>(1) {
+        @Override
+        protected Robo newObject() {
+            return new Robo();
+        }
+    };
+    private final EntityPool<Fuel> fuelPool = new EntityPool<Fuel>(1) {
+        @Override
+        protected Fuel newObject() {
+            return new Fuel();
+        }
+    };
+
     // The game state
     private WorldState state = WorldState.Ready;
     private final Vector2 gravity = new Vector2();
     private int score = 0;
 
+    // Every run draws its random numbers from a generator
+    // seeded with the run's seed, so a run can be reproduced
+    // from its seed and the input of each tick
+    private final RandomXS128 random = new RandomXS128();
+    private long runSeed;
+    private int runTicks;
+    private ReplayRecorder recorder;
+
+    // The level is streamed in chunks ahead of Robo. New
+    // obstacles are placed from the chunk at the obstacle
+    // cursor, the fuel from the chunk at the fuel cursor
+    private final LevelStream level = new LevelStream();
+    private long levelSeed;
+    private final LevelChunk obstacleChunk = new LevelChunk();
+    private int obstacleSlot;
+    private final LevelChunk fuelChunk = new LevelChunk();
+
+    // Fixed timestep state, see update(float)
+    private float tickTime = 1f / DEFAULT_TICK_RATE;
+    private int maxStepsPerFrame = DEFAULT_MAX_STEPS_PER_FRAME;
+    private float accumulator = 0;
+    private boolean pendingTap = false;
+
     // Scratch rectangles used for collision detection
     // We keep them as instance fields to not generate
     // garbage every time we update the world!
     private final Rectangle rect1 = new Rectangle();
     private final Rectangle rect2 = new Rectangle();
+    private final Rectangle startBounds = new Rectangle();
+    private final Rectangle sweptBounds = new Rectangle();
 
+    // The collision boxes of the obstacles, updated when
+    // they are asked for. Obstacles spin every tick, so
+    // only boxes nobody asks for are spared the work
+    private final OrientedBox[] obstacleBoxes;
 
-    public World(WorldCallback callback) {
-        this.callback = callback;
+    // Broad phase for collision detection, rebuilt whenever
+    // an obstacle or fuel cell was moved
+    private final SpatialGrid grid;
+    private final IntArray candidates = new IntArray();
+    private boolean gridDirty = true;
+
+
+    public World(WorldInput input) {
+        this(input, NUM_OBSTACLES);
+    }
+
+    /**
+     * @param input the touch state to react to
+     * @param numObstacles the number of obstacles to keep in the world, at
+     * least {@link LevelChunk#MAX_OBSTACLES} so they do not pop up on screen
+     */
+    public World(WorldInput input, int numObstacles) {
+        this(input, numObstacles, new ObjectObstacleStore());
+    }
+
+    /**
+     * @param input the touch state to react to, sampled per tick if it is a {@link TimedInput}
+     * @param numObstacles the number of obstacles to keep in the world, at
+     * least {@link LevelChunk#MAX_OBSTACLES} so they do not pop up on screen
+     * @param obstacles the empty store to keep the obstacles in, e.g. a
+     * {@link PackedObstacleStore} when there are many obstacles
+     */
+    public World(WorldInput input, int numObstacles, ObstacleStore obstacles) {
+        this.input = input;
+        this.timedInput = input instanceof TimedInput ? (TimedInput)input : null;
+        this.numObstacles = numObstacles;
+        this.obstacles = obstacles;
+
+        // Size the grid so obstacles only share cells
+        // once the grid wraps around
+        this.grid = new SpatialGrid(GRID_CELL_SIZE, (int)(numObstacles * OBSTACLE_DISTANCE / GRID_CELL_SIZE) + 1);
+        this.obstacleBoxes = new OrientedBox[numObstacles];
+        for (int i = 0; i < numObstacles; i++) {
+            obstacleBoxes[i] = new OrientedBox();
+        }
+        random.setSeed(MathUtils.random.nextLong());
         resetWorld();
     }
 
     /**
-     * Resets the World to its initial state
+     * Resets the World to its initial state and starts a new
+     * run with the given seed. Runs started with the same
+     * seed and fed the same input per tick play out exactly
+     * the same.
+     * @param seed the seed of the run
+     */
+    public void restart(long seed) {
+        state = WorldState.Ready;
+        startRun(seed);
+    }
+
+    /**
+     * Resets the World to its initial state, seeding the
+     * new run from the random number generator of the last
      */
     private void resetWorld() {
+        startRun(random.nextLong());
+    }
+
+    /**
+     * Resets the World to its initial state
+     * @param seed the seed of the new run
+     */
+    private void startRun(long seed) {
+        runSeed = seed;
+        runTicks = 0;
+        random.setSeed(seed);
+        if (recorder != null) {
+            recorder.begin(seed, numObstacles, Math.round(1 / tickTime));
+        }
+
         // Reset score
         score = 0;
 
@@ -72,112 +218,325 @@ public class World {
         gravity.set(0, GRAVITY);
 
         // Setup Robo's starting position
-        robo = new Robo(ROBO_START_X, ROBO_START_Y);
+        roboPool.recycleAll();
+        robo = roboPool.spawn();
+        robo.place(ROBO_START_X, ROBO_START_Y);
+
+        // Start streaming the level of this run
+        levelSeed = random.nextLong();
+        level.restart(levelSeed);
+        level.read(0, obstacleChunk);
+        obstacleSlot = 0;
+        fuelChunk.setIndex(-1);
 
         // Setup a fuel instance
-        fuel = new Fuel();
-        fuel.getPosition().set(800 + OBSTACLE_DISTANCE / 2, MathUtils.random(40, 440));
+        fuelPool.recycleAll();
+        fuel = fuelPool.spawn();
+        reposition(fuel);
 
-        // Create initial obstacles
+        // Create initial obstacles, the store recycles
+        // the ones of the last run
         obstacles.clear();
-        for (int i = 0; i < 5; i++) {
-            boolean isDown = MathUtils.randomBoolean();
-            Obstacle o = new Obstacle();
-            o.getPosition().set(800 + i * OBSTACLE_DISTANCE, MathUtils.random(0, 480 - OBSTACLE_HEIGHT));
-            obstacles.add(o);
+        for (int i = 0; i < numObstacles; i++) {
+            reposition(obstacles.add(0, 0, 0));
         }
     }
 
     /**
-     * Update the game world based on user input
+     * Writes the full state of the world, see {@link WorldSnapshot}
+     * @param buffer the buffer to write to, needs {@link #getStateSize()} bytes left
      */
-    public void update() {
+    void writeState(ByteBuffer buffer) {
+        buffer.putInt(numObstacles);
+        buffer.put((byte)state.ordinal());
+        buffer.putInt(score);
+        buffer.putLong(runSeed);
+        buffer.putInt(runTicks);
+        buffer.putLong(random.getState(0));
+        buffer.putLong(random.getState(1));
+        buffer.putFloat(tickTime);
+        buffer.putFloat(accumulator);
+        buffer.put((byte)(pendingTap ? 1 : 0));
+
+        // The chunks are regenerated from the level seed
+        buffer.putLong(levelSeed);
+        buffer.putInt(obstacleChunk.getIndex());
+        buffer.putInt(obstacleSlot);
+        buffer.putInt(fuelChunk.getIndex());
+
+        putVector(buffer, robo.getPosition());
+        putVector(buffer, robo.getPreviousPosition());
+        putVector(buffer, robo.getVelocity());
+        buffer.putFloat(robo.getStateTime());
+        buffer.putFloat(robo.getFuel());
+        putVector(buffer, fuel.getPosition());
+
+        for (int i = 0; i < numObstacles; i++) {
+            buffer.putFloat(obstacles.getX(i));
+            buffer.putFloat(obstacles.getY(i));
+            buffer.putFloat(obstacles.getRotation(i));
+        }
+        // The counted flags as a bit set
+        for (int i = 0; i < numObstacles; i += 8) {
+            int bits = 0;
+            for (int j = i; j < Math.min(i + 8, numObstacles); j++) {
+                if (obstacles.isCounted(j)) bits |= 1 << (j - i);
+            }
+            buffer.put((byte)bits);
+        }
+    }
+
+    /**
+     * Restores the full state of the world written by
+     * {@link #writeState(ByteBuffer)}. A run restored in the
+     * middle is not recorded, recording resumes with the
+     * next run.
+     * @param buffer the buffer to read from
+     */
+    void readState(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count != numObstacles) {
+            throw new GdxRuntimeException("Snapshot has " + count + " obstacles, world has " + numObstacles);
+        }
+        state = STATES[buffer.get()];
+        score = buffer.getInt();
+        runSeed = buffer.getLong();
+        runTicks = buffer.getInt();
+        long state0 = buffer.getLong();
+        random.setState(state0, buffer.getLong());
+        tickTime = buffer.getFloat();
+        accumulator = buffer.getFloat();
+        pendingTap = buffer.get() != 0;
+        boosting = false;
+        if (recorder != null) {
+            recorder.abort();
+        }
+
+        levelSeed = buffer.getLong();
+        level.restart(levelSeed);
+        level.read(buffer.getInt(), obstacleChunk);
+        level.retireBefore(obstacleChunk.getIndex());
+        obstacleSlot = buffer.getInt();
+        int fuelChunkIndex = buffer.getInt();
+        if (fuelChunkIndex >= 0) {
+            level.read(fuelChunkIndex, fuelChunk);
+        } else {
+            fuelChunk.setIndex(-1);
+        }
+
+        getVector(buffer, robo.getPosition());
+        getVector(buffer, robo.getPreviousPosition());
+        getVector(buffer, robo.getVelocity());
+        robo.setStateTime(buffer.getFloat());
+        robo.setFuel(buffer.getFloat());
+        getVector(buffer, fuel.getPosition());
+
+        for (int i = 0; i < numObstacles; i++) {
+            float x = buffer.getFloat();
+            obstacles.setPosition(i, x, buffer.getFloat());
+            obstacles.setRotation(i, buffer.getFloat());
+        }
+        for (int i = 0; i < numObstacles; i += 8) {
+            int bits = buffer.get();
+            for (int j = i; j < Math.min(i + 8, numObstacles); j++) {
+                obstacles.setCounted(j, (bits & (1 << (j - i))) != 0);
+            }
+        }
+        gridDirty = true;
+    }
+
+    /**
+     * @return the number of bytes {@link #writeState(ByteBuffer)} writes
+     */
+    int getStateSize() {
+        return 4 + 1 + 4 + 8 + 4 + 8 + 8 + 4 + 4 + 1
+                + 8 + 4 + 4 + 4
+                + 8 * 4 + 8
+                + numObstacles * 12 + (numObstacles + 7) / 8;
+    }
+
+    private static void putVector(ByteBuffer buffer, Vector2 v) {
+        buffer.putFloat(v.x);
+        buffer.putFloat(v.y);
+    }
+
+    private static void getVector(ByteBuffer buffer, Vector2 v) {
+        float x = buffer.getFloat();
+        v.set(x, buffer.getFloat());
+    }
+
+    /**
+     * Advances the game world by the given amount of real time.
+     * The time is accumulated and consumed in ticks of fixed
+     * length, so the outcome of the simulation does not depend
+     * on the frame rate. At most {@link #getMaxStepsPerFrame()}
+     * ticks are run per call, any time beyond that is dropped.
+     * @param deltaTime the time since the last call in seconds
+     */
+    public void update(float deltaTime) {
+        // Remember taps until the next tick consumes them, we
+        // might not run a tick at all this frame. Timed input
+        // is sampled per tick instead
+        boolean touched = false;
+        if (timedInput == null) {
+            if (input.justTouched()) {
+                pendingTap = true;
+            }
+            touched = input.isTouched();
+        }
+
+        accumulator += deltaTime;
+        int steps = 0;
+        while (accumulator >= tickTime) {
+            if (steps == maxStepsPerFrame) {
+                // We can't keep up, drop the time we are behind
+                accumulator %= tickTime;
+                break;
+            }
+            if (timedInput != null) {
+                timedInput.advance(accumulator - tickTime);
+                if (input.justTouched()) {
+                    pendingTap = true;
+                }
+                touched = input.isTouched();
+            }
+            step(pendingTap, touched);
+            pendingTap = false;
+            accumulator -= tickTime;
+            steps++;
+        }
+    }
+
+    /**
+     * Advances the game world by a single tick of fixed length,
+     * bypassing the {@link WorldInput}. Used to play back recorded
+     * input, see {@link ReplayPlayer}.
+     * @param justTouched whether the user tapped the screen since the last tick
+     * @param touched whether the user is holding down a finger on screen
+     */
+    public void step(boolean justTouched, boolean touched) {
+        float deltaTime = tickTime;
+        if (recorder != null) {
+            recorder.record(runTicks, justTouched, touched);
+        }
+        runTicks++;
+
+        // remember where Robo was at the start of the tick, the
+        // Renderer interpolates between this and the new position
+        robo.getPreviousPosition().set(robo.getPosition());
+
         // calculate the number of seconds Robo has been flying so far.
         // This is used by the Renderer to pick the proper animation
         // frame for Robo.
-        float deltaTime = Gdx.graphics.getDeltaTime();
         robo.increaseStateTime(deltaTime);
 
         // Check if the user tapped the screen. Depending on the
         // game state, perform an action
-        if (Gdx.input.justTouched()) {
+        if (justTouched) {
             // We are at the start screen, start playing!
             if (state == WorldState.Ready) {
                 state = WorldState.Playing;
             }
 
             // We are in the game over state, start a new game!
+            // The new run begins with the next tick
             if (state == WorldState.GameOver) {
                 state = WorldState.Ready;
                 resetWorld();
+                return;
             }
         }
 
         // If the user is holding down a finger on screen, add
         // upward velocity to Robo and decrease the fuel
-        if(state == WorldState.Playing && Gdx.input.isTouched()) {
+        if(state == WorldState.Playing && touched) {
             if (state == state.Playing && robo.getFuel() > 0) {
                 robo.getVelocity().set(ROBO_VELOCITY_X, ROBO_JUMP_IMPULSE);
-                robo.removeFuel(FUEL_BURN_PER_SECOND * Gdx.graphics.getDeltaTime());
-                callback.boosting();
+                robo.removeFuel(FUEL_BURN_PER_SECOND * deltaTime);
+                setBoosting(true);
             }
         } else {
-            callback.boostingOff();
+            setBoosting(false);
         }
 
         // If we are playing, apply gravity to Robo
         if (state != WorldState.Ready) {
-            robo.getVelocity().add(gravity);
+            robo.getVelocity().mulAdd(gravity, deltaTime);
         }
 
         // integrate Robo's velocity over time
         robo.getPosition().mulAdd(robo.getVelocity(), deltaTime);
 
 
-        // Check for collisions between Robo and the obstacles.
-        // We put a rectangle around both Robo and an obstacle,
-        // then check for overlap between the two rectangles.
-        Rectangle roboBounds = getRoboBounds();
-        for (Obstacle o : obstacles) {
+        for (int i = 0; i < obstacles.size(); i++) {
 
             // Check if the obstacles is outside the visible screen
             // area. If that is the case, reposition it at the
             // right side of the screen!
-            if (robo.getPosition().x + 350 - o.getPosition().x > 400 + OBSTACLE_WIDTH) {
-                boolean isDown = MathUtils.randomBoolean();
-                reposition(o);
-                o.setCounted(false);
-                o.setRotation(MathUtils.random(360));
-            }
-
-            Rectangle obstacleBounds = getObstacleBounds(o);
-
-            // Check if we collide with the current obstacle
-            // and change to the game over state in that case
-            if (roboBounds.overlaps(obstacleBounds)) {
-                if (state != WorldState.GameOver) {
-                    callback.hitObstacle();
-                }
-                state = WorldState.GameOver;
-                robo.getVelocity().x = 0;
+            if (robo.getPosition().x + 350 - obstacles.getX(i) > 400 + OBSTACLE_WIDTH) {
+                reposition(i);
             }
 
             // If Robo passed the obstacle, increase the score
-            if (o.getPosition().x < robo.getPosition().x && !o.isCounted()) {
+            if (obstacles.getX(i) < robo.getPosition().x && !obstacles.isCounted(i)) {
                 score++;
-                o.setCounted(true);
+                obstacles.setCounted(i, true);
+                publish(WorldEvent.Score);
+            }
+        }
+        obstacles.rotateAll(deltaTime * 20);
+
+        // Check for collisions between Robo and the obstacles,
+        // the fuel cell, the ground and the ceiling. We sweep
+        // Robo's bounds from where he was at the start of the
+        // tick to where he is now, so he can't skip over an
+        // object, however long the tick. The broad phase gives
+        // us everything close to the swept bounds.
+        Vector2 start = robo.getPreviousPosition();
+        Vector2 end = robo.getPosition();
+        float dx = end.x - start.x;
+        float dy = end.y - start.y;
+        Rectangle roboBounds = getRoboBounds();
+        startBounds.set(roboBounds.x - dx, roboBounds.y - dy, roboBounds.width, roboBounds.height);
+        sweptBounds.set(startBounds).merge(roboBounds);
+
+        // Find the earliest impact with an obstacle, the ground
+        // or the ceiling and whether Robo reached the fuel cell
+        // before that
+        float impact = SweptCollision.timeBelow(start.y, end.y, -ROBO_HEIGHT / 2);
+        impact = Math.min(impact, SweptCollision.timeAbove(start.y, end.y, 480 - ROBO_HEIGHT / 2));
+        float fuelImpact = SweptCollision.NO_IMPACT;
+        IntArray candidates = findCollisionCandidates(sweptBounds);
+        for (int i = 0; i < candidates.size; i++) {
+            int handle = candidates.get(i);
+            switch (SpatialGrid.kind(handle)) {
+                case SpatialGrid.OBSTACLE:
+                    impact = Math.min(impact, SweptCollision.timeOfImpact(startBounds, dx, dy, getObstacleBox(SpatialGrid.index(handle))));
+                    break;
+                case SpatialGrid.FUEL:
+                    fuelImpact = SweptCollision.timeOfImpact(startBounds, dx, dy, getFuelBounds(fuel));
+                    break;
             }
-
-            o.setRotation(o.getRotation() + Gdx.graphics.getDeltaTime() * 20);
         }
 
-        // Check if Robo hit a fuel cell
-        if(roboBounds.overlaps(getFuelBounds(fuel))) {
-            callback.hitFuel();
+        // Check if Robo hit the fuel cell
+        if (fuelImpact != SweptCollision.NO_IMPACT && fuelImpact <= impact) {
             robo.addFuel(100);
+            publish(WorldEvent.HitFuel);
             reposition(fuel);
         }
 
+        // Change to the game over state if Robo crashed, he
+        // stops where he hit the obstacle, ground or ceiling
+        if (impact != SweptCollision.NO_IMPACT) {
+            if (state != WorldState.GameOver) {
+                publish(WorldEvent.HitObstacle);
+                end.set(start.x + dx * impact, start.y + dy * impact);
+            }
+            gameOver();
+            robo.getVelocity().x = 0;
+        }
+
         // Check if the fuel left the screen and reposition
         if(robo.getPosition().x + 350 - fuel.getPosition().x > 400 + FUEL_WIDTH) {
             reposition(fuel);
@@ -186,38 +545,167 @@ public class World {
         // Check if Robo has fuel left
         if(robo.getFuel() <= 0) {
             if(state != WorldState.GameOver) {
-                callback.outOfFuel();
+                publish(WorldEvent.OutOfFuel);
             }
-            state = WorldState.GameOver;
+            gameOver();
         }
+    }
 
-        // Check if Robo hit the ground or ceiling
-        if (robo.getPosition().y < - ROBO_HEIGHT / 2 ||
-                robo.getPosition().y + ROBO_HEIGHT / 2 > 480) {
-            if (state != WorldState.GameOver) {
-                callback.hitObstacle();
+    /**
+     * Ends the run. Its replay is finished right away, a tap
+     * later in the same update may already start the next run
+     */
+    private void gameOver() {
+        if (state != WorldState.GameOver && recorder != null) {
+            recorder.finish();
+        }
+        state = WorldState.GameOver;
+    }
+
+    /**
+     * Publishes an event if Robo started or stopped boosting,
+     * so listeners are not flooded with one event per tick
+     * @param boosting whether Robo boosts in this tick
+     */
+    private void setBoosting(boolean boosting) {
+        if (this.boosting != boosting) {
+            this.boosting = boosting;
+            publish(boosting ? WorldEvent.BoostOn : WorldEvent.BoostOff);
+        }
+    }
+
+    private void publish(WorldEvent event) {
+        events.publish(event, runTicks, score);
+    }
+
+    /**
+     * Finds the obstacles and fuel cells close enough to Robo
+     * to possibly collide with him. Obstacles and fuel only
+     * move when they get repositioned, so the broad phase is
+     * only rebuilt after that happened.
+     * @param roboBounds the bounds Robo covered during the tick
+     * @return the {@link SpatialGrid} handles of the candidates, always returns the same instance
+     */
+    IntArray findCollisionCandidates(Rectangle roboBounds) {
+        if (gridDirty) {
+            grid.clear();
+            for (int i = 0; i < obstacles.size(); i++) {
+                // the boxes spin every tick but the grid is only
+                // rebuilt after repositioning, so insert them with
+                // what they cover at any rotation
+                float centerX = obstacles.getX(i) + OBSTACLE_WIDTH / 2;
+                grid.insert(SpatialGrid.handle(SpatialGrid.OBSTACLE, i), centerX - OBSTACLE_BOX_REACH, centerX + OBSTACLE_BOX_REACH);
             }
-            state = WorldState.GameOver;
-            robo.getVelocity().x = 0;
+            float x = fuel.getPosition().x;
+            grid.insert(SpatialGrid.handle(SpatialGrid.FUEL, 0), x, x + FUEL_WIDTH);
+            gridDirty = false;
         }
+        grid.query(roboBounds.x, roboBounds.x + roboBounds.width, candidates);
+        return candidates;
     }
 
     /**
-     * Repositions an Obstacle to the right side of the screen
-     * @param o the obstacle
+     * Recycles an Obstacle that left the screen by moving
+     * it to the next placement in the level, behind all
+     * other obstacles. Chunks whose obstacles were all
+     * placed are retired from the level stream.
+     * @param index the index of the obstacle
      */
-    private void reposition(Obstacle o) {
-        o.getPosition().x += obstacles.size * OBSTACLE_DISTANCE;
-        o.getPosition().y = MathUtils.random(OBSTACLE_HEIGHT, 480 - OBSTACLE_HEIGHT);
+    void reposition(int index) {
+        if (obstacleSlot == obstacleChunk.getObstacleCount()) {
+            level.read(obstacleChunk.getIndex() + 1, obstacleChunk);
+            level.retireBefore(obstacleChunk.getIndex());
+            obstacleSlot = 0;
+        }
+        obstacles.setPosition(index, obstacleChunk.getObstacleX(obstacleSlot), obstacleChunk.getObstacleY(obstacleSlot));
+        obstacles.setRotation(index, obstacleChunk.getObstacleRotation(obstacleSlot));
+        obstacles.setCounted(index, false);
+        obstacleSlot++;
+        gridDirty = true;
     }
 
     /**
-     * Repositions the fuel to the right side of the screen
+     * Moves the fuel to the placement of the next chunk
+     * that is still off screen, starting no earlier than
+     * the chunk new obstacles are placed from
      * @param f the fuel
      */
     private void reposition(Fuel f) {
-        f.getPosition().x += obstacles.size * OBSTACLE_DISTANCE;
-        f.getPosition().y = MathUtils.random(OBSTACLE_HEIGHT, 480 - OBSTACLE_HEIGHT);
+        float rightEdge = robo.getPosition().x + 350 + 400;
+        int next = Math.max(fuelChunk.getIndex() + 1, obstacleChunk.getIndex());
+        do {
+            if (next == obstacleChunk.getIndex()) {
+                fuelChunk.set(obstacleChunk);
+            } else {
+                level.read(next, fuelChunk);
+            }
+            next++;
+        } while (fuelChunk.getFuelX() <= rightEdge);
+        f.getPosition().set(fuelChunk.getFuelX(), fuelChunk.getFuelY());
+        gridDirty = true;
+    }
+
+
+    /**
+     * @return the seed the current run was started with
+     */
+    public long getRunSeed() {
+        return runSeed;
+    }
+
+    /**
+     * @return the number of ticks since the current run was started
+     */
+    public int getRunTicks() {
+        return runTicks;
+    }
+
+    /**
+     * @param recorder records the input of each run, starting with the
+     * current run if it hasn't ticked yet, or null to stop recording
+     */
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+        if (recorder != null && runTicks == 0) {
+            recorder.begin(runSeed, numObstacles, Math.round(1 / tickTime));
+        }
+    }
+
+    /**
+     * @return the fraction of a tick that has accumulated but not
+     * been simulated yet, 0 to 1. Used by the Renderer to interpolate
+     * between the previous and current tick.
+     */
+    public float getAlpha() {
+        return accumulator / tickTime;
+    }
+
+    /**
+     * @return the length of a simulation tick in seconds
+     */
+    public float getTickTime() {
+        return tickTime;
+    }
+
+    /**
+     * @param ticksPerSecond the number of simulation ticks per second
+     */
+    public void setTickRate(int ticksPerSecond) {
+        this.tickTime = 1f / ticksPerSecond;
+    }
+
+    /**
+     * @return the maximum number of ticks run by a single call to {@link #update(float)}
+     */
+    public int getMaxStepsPerFrame() {
+        return maxStepsPerFrame;
+    }
+
+    /**
+     * @param maxStepsPerFrame the maximum number of ticks run by a single call to {@link #update(float)}
+     */
+    public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+        this.maxStepsPerFrame = maxStepsPerFrame;
     }
 
     /**
@@ -230,10 +718,27 @@ public class World {
     /**
      * @return the obstacles
      */
-    public Array<Obstacle> getObstacles() {
+    public ObstacleStore getObstacles() {
         return obstacles;
     }
 
+    /**
+     * @return the stream the level is read from, call
+     * {@link LevelStream#startProducer()} to generate it
+     * on a background thread
+     */
+    public LevelStream getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the bus events in the world are published to, drain
+     * it after updating the world to pass them to its listeners
+     */
+    public WorldEventBus getEvents() {
+        return events;
+    }
+
     /**
      * @return the current game state
      */
@@ -264,24 +769,29 @@ public class World {
     }
 
     /**
-     * @param o the obstacle
-     * @return the bounds of the obstacle, always returns the same instance
+     * @param index the index of the obstacle
+     * @return the axis aligned bounds of the obstacle's rotated collision
+     * box, always returns the same instance
      */
-    public Rectangle getObstacleBounds(Obstacle o) {
-        rect2.set(o.getPosition().x + 15, o.getPosition().y + 20, OBSTACLE_WIDTH - 30, OBSTACLE_HEIGHT - 40);
+    public Rectangle getObstacleBounds(int index) {
+        rect2.set(getObstacleBox(index).getBounds());
         return rect2;
     }
 
+    /**
+     * @param index the index of the obstacle
+     * @return the collision box of the obstacle, rotated with it. Do
+     * not modify, the box is updated by the next call for the same index
+     */
+    public OrientedBox getObstacleBox(int index) {
+        OrientedBox box = obstacleBoxes[index];
+        box.set(obstacles.getX(index) + OBSTACLE_WIDTH / 2, obstacles.getY(index) + OBSTACLE_HEIGHT / 2,
+                OBSTACLE_BOX_WIDTH / 2, OBSTACLE_BOX_HEIGHT / 2, obstacles.getRotation(index));
+        return box;
+    }
+
     public Rectangle getFuelBounds(Fuel fuel) {
         rect2.set(fuel.getPosition().x, fuel.getPosition().y, FUEL_WIDTH, FUEL_HEIGHT);
         return rect2;
     }
-
-    public interface WorldCallback {
-        void hitObstacle();
-        void hitFuel();
-        void outOfFuel();
-        void boosting();
-        void boostingOff();
-    }
 }
@@ -0,0 +1,19 @@
+package com.robovm.robomission;
+
+/**
+ * The events a {@link World} publishes to its {@link WorldEventBus}
+ */
+public enum WorldEvent {
+    // Robo hit an obstacle, the ground or the ceiling
+    HitObstacle,
+    // Robo picked up a fuel cell
+    HitFuel,
+    // Robo ran out of fuel
+    OutOfFuel,
+    // Robo started boosting
+    BoostOn,
+    // Robo stopped boosting
+    BoostOff,
+    // Robo passed an obstacle
+    Score
+}
@@ -0,0 +1,129 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Carries {@link WorldEvent}s from the simulation to any
+ * number of {@link Listener}s. The {@link World} publishes
+ * events into a preallocated ring buffer while it ticks,
+ * the listeners are only called when the owner drains the
+ * bus after the tick, so slow listeners, e.g. audio or
+ * analytics, never extend the tick itself.
+ *
+ * The ring buffer has a single producer, the thread
+ * ticking the world, and a single consumer, the thread
+ * draining the bus, and needs no locks: the producer only
+ * writes {@link #published}, the consumer only writes
+ * {@link #consumed}. Publishing never blocks or allocates,
+ * if the ring is full the event is dropped and counted.
+ */
+public class WorldEventBus {
+    // The number of events buffered between two drains,
+    // a power of two
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final WorldEvent[] EVENTS = WorldEvent.values();
+
+    /**
+     * Receives the events of a world, called by {@link #drain()}
+     */
+    public interface Listener {
+        /**
+         * @param event the event
+         * @param tick the tick of the run the event happened in
+         * @param score the score at the time of the event
+         */
+        void onEvent(WorldEvent event, int tick, int score);
+    }
+
+    private final int[] events;
+    private final int[] ticks;
+    private final int[] scores;
+    private final int mask;
+
+    // Written by the producer
+    private volatile int published;
+    private int dropped;
+
+    // Written by the consumer
+    private volatile int consumed;
+    private final Array<Listener> listeners = new Array<Listener>(false, 4);
+
+    public WorldEventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of events buffered between two drains, a power of two
+     */
+    public WorldEventBus(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        events = new int[capacity];
+        ticks = new int[capacity];
+        scores = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Queues an event. Called by the producer.
+     * @param event the event
+     * @param tick the tick of the run the event happened in
+     * @param score the score at the time of the event
+     * @return whether the event was queued, false if the ring was full
+     */
+    public boolean publish(WorldEvent event, int tick, int score) {
+        int index = published;
+        if (index - consumed == events.length) {
+            dropped++;
+            return false;
+        }
+        int slot = index & mask;
+        events[slot] = event.ordinal();
+        ticks[slot] = tick;
+        scores[slot] = score;
+        published = index + 1;
+        return true;
+    }
+
+    /**
+     * Passes all queued events to the listeners, in the
+     * order they were published. Called by the consumer.
+     * @return the number of events drained
+     */
+    public int drain() {
+        int from = consumed;
+        int to = published;
+        for (int index = from; index != to; index++) {
+            int slot = index & mask;
+            WorldEvent event = EVENTS[events[slot]];
+            for (int i = 0; i < listeners.size; i++) {
+                listeners.get(i).onEvent(event, ticks[slot], scores[slot]);
+            }
+        }
+        consumed = to;
+        return to - from;
+    }
+
+    /**
+     * @param listener receives the events of following drains. Called by the consumer.
+     */
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener no longer receives events. Called by the consumer.
+     */
+    public void unsubscribe(Listener listener) {
+        listeners.removeValue(listener, true);
+    }
+
+    /**
+     * @return the number of events dropped because the ring was full
+     */
+    public int getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,19 @@
+package com.robovm.robomission;
+
+/**
+ * Supplies the touch state the {@link World} reacts to.
+ * This decouples the simulation from Gdx.input, so the
+ * World can also be driven without a backend, e.g. by
+ * a bot in a headless batch run.
+ */
+public interface WorldInput {
+    /**
+     * @return whether the user tapped the screen since the last call
+     */
+    boolean justTouched();
+
+    /**
+     * @return whether the user is holding down a finger on screen
+     */
+    boolean isTouched();
+}
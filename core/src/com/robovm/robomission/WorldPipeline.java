@@ -0,0 +1,173 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the updates of a {@link World} and hands the result
+ * to the {@link Renderer} as a {@link RenderState}. When
+ * threaded, the update of the next frame runs on a worker
+ * thread while the rendering thread draws the state of the
+ * last one, so the update cost leaves the critical frame
+ * path. The renderer then shows the world one frame later
+ * than it was simulated.
+ *
+ * Every frame the rendering thread calls {@link #sync()},
+ * may then touch the world until it calls {@link #submit(float)},
+ * and renders {@link #getFrame()}. The worker captures into
+ * a back buffer while the renderer reads the front buffer,
+ * the two are swapped in {@link #sync()}. The handoff needs
+ * no locks: the rendering thread only writes
+ * {@link #submitted}, the worker only writes {@link #completed}.
+ * Input the world reads must be sampled on the rendering
+ * thread before submitting, e.g. by {@link TouchQueue#latch()}.
+ */
+public class WorldPipeline {
+    // How long a waiting thread parks at most, in case a
+    // wake up got lost
+    private static final long IDLE_NANOS = 10000000;
+
+    private final World world;
+    private RenderState front = new RenderState();
+    private RenderState back = new RenderState();
+
+    // Written by the rendering thread
+    private float deltaTime;
+    private volatile int submitted;
+    private volatile Thread waiter;
+    private boolean inFlight;
+    private volatile Thread worker;
+    private volatile boolean collisionBounds;
+
+    // Written by the worker
+    private volatile int completed;
+    private volatile Throwable failure;
+
+    /**
+     * @param world the world to update
+     * @param threaded whether to update the world on a worker thread
+     */
+    public WorldPipeline(World world, boolean threaded) {
+        this.world = world;
+        front.capture(world, false);
+        if (threaded) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    simulate();
+                }
+            }, "world-simulation");
+            thread.setDaemon(true);
+            worker = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Waits for the update in flight, if any, and makes its
+     * result the frame to render. Until the next call to
+     * {@link #submit(float)} the world may be read and modified.
+     * @throws GdxRuntimeException if the update failed on the worker
+     */
+    public void sync() {
+        if (completed != submitted) {
+            waiter = Thread.currentThread();
+            while (completed != submitted) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+            waiter = null;
+        }
+        Throwable t = failure;
+        if (t != null) {
+            failure = null;
+            throw new GdxRuntimeException("World update failed", t);
+        }
+        if (inFlight) {
+            inFlight = false;
+            RenderState state = front;
+            front = back;
+            back = state;
+        }
+    }
+
+    /**
+     * Starts updating the world, on the worker if threaded. The world must not be touched until
+     * the next call to {@link #sync()}.
+     * @param deltaTime the time since the last frame in seconds
+     */
+    public void submit(float deltaTime) {
+        Thread thread = worker;
+        if (thread == null) {
+            world.update(deltaTime);
+            front.capture(world, collisionBounds);
+            return;
+        }
+        this.deltaTime = deltaTime;
+        inFlight = true;
+        submitted++;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * @return the state of the world to render, the result of the last
+     * update that finished before {@link #sync()}, or of the update
+     * run by {@link #submit(float)} when not threaded
+     */
+    public RenderState getFrame() {
+        return front;
+    }
+
+    /**
+     * @param collisionBounds whether frames include the collision bounds, only
+     * needed to draw them for debugging, see {@link RenderState#capture(World, boolean)}
+     */
+    public void setCollisionBounds(boolean collisionBounds) {
+        this.collisionBounds = collisionBounds;
+    }
+
+    /**
+     * @return whether the world is updated on a worker thread
+     */
+    public boolean isThreaded() {
+        return worker != null;
+    }
+
+    /**
+     * Waits for the update in flight and stops the worker,
+     * the world is updated inline from then on
+     */
+    public void dispose() {
+        Thread thread = worker;
+        if (thread == null) return;
+        sync();
+        worker = null;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void simulate() {
+        int done = 0;
+        while (worker == Thread.currentThread()) {
+            if (submitted == done) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+            try {
+                world.update(deltaTime);
+                back.capture(world, collisionBounds);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            completed = ++done;
+            Thread thread = waiter;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.robovm.robomission;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A copy of the full state of a {@link World}: Robo, the
+ * obstacles, the fuel cell, score, game state, the random
+ * number generator and the position in the level stream.
+ * Capturing and restoring copies primitives to and from a
+ * preallocated buffer, so both are fast and allocation
+ * free, e.g. to rewind a run, to save it when the app is
+ * paused or to start headless simulations from a checkpoint.
+ *
+ * The binary format starts with a header (magic, version),
+ * followed by the world's state, see {@link World#writeState(ByteBuffer)}.
+ * Snapshots can only be restored into worlds with the same
+ * number of obstacles.
+ */
+public class WorldSnapshot {
+    public static final int MAGIC = 0x524D534E;
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+
+    private final ByteBuffer buffer;
+    private boolean empty = true;
+
+    /**
+     * @param world the world to size the snapshot for
+     */
+    public WorldSnapshot(World world) {
+        buffer = ByteBuffer.allocate(HEADER_SIZE + world.getStateSize());
+    }
+
+    private WorldSnapshot(byte[] bytes) {
+        buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not a world snapshot");
+        }
+        int version = buffer.get();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Unsupported snapshot version " + version);
+        }
+        empty = false;
+    }
+
+    /**
+     * Copies the state of the world into this snapshot
+     * @param world the world, with the number of obstacles this snapshot was sized for
+     */
+    public void capture(World world) {
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.put((byte)VERSION);
+        world.writeState(buffer);
+        empty = false;
+    }
+
+    /**
+     * Sets the world to the state in this snapshot
+     * @param world the world, with the number of obstacles the snapshot was taken of
+     */
+    public void restore(World world) {
+        if (empty) throw new GdxRuntimeException("Snapshot is empty");
+        buffer.position(HEADER_SIZE);
+        world.readState(buffer);
+    }
+
+    /**
+     * @return whether nothing was captured into this snapshot yet
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @return the encoded snapshot
+     */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[buffer.capacity()];
+        System.arraycopy(buffer.array(), 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * @param file the file to write the snapshot to
+     */
+    public void save(FileHandle file) {
+        file.writeBytes(buffer.array(), 0, buffer.capacity(), false);
+    }
+
+    /**
+     * @param bytes an encoded snapshot, see {@link #toByteArray()}
+     * @return the snapshot
+     * @throws GdxRuntimeException if the bytes are not a snapshot of a supported version
+     */
+    public static WorldSnapshot fromByteArray(byte[] bytes) {
+        return new WorldSnapshot(bytes);
+    }
+
+    /**
+     * @param file a file written by {@link #save(FileHandle)}
+     * @return the snapshot
+     * @throws GdxRuntimeException if the file is not a snapshot of a supported version
+     */
+    public static WorldSnapshot load(FileHandle file) {
+        return new WorldSnapshot(file.readBytes());
+    }
+}
@@ -2,6 +2,7 @@ package com.robovm.robomission.desktop;
 
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
+import com.robovm.robomission.FramePacer;
 import com.robovm.robomission.RoboMission;
 
 public class DesktopLauncher {
@@ -9,6 +10,8 @@ public class DesktopLauncher {
         LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
         config.width = 800;
         config.height = 480;
-        new LwjglApplication(new RoboMission(), config);
+        // render at the idle rate while the window is in the background
+        config.backgroundFPS = FramePacer.DEFAULT_IDLE_FRAMES_PER_SECOND;
+        new LwjglApplication(new RoboMission(new FramePacer()), config);
     }
 }
@@ -0,0 +1,64 @@
+package com.robovm.robomission.headless;
+
+import com.robovm.robomission.ObstacleStore;
+import com.robovm.robomission.Robo;
+import com.robovm.robomission.World;
+
+/**
+ * A simple scripted player. Looks at the next obstacle
+ * ahead of Robo and boosts whenever Robo is below the
+ * altitude on the other side of it.
+ */
+public class AltitudeBoostPolicy implements BoostPolicy {
+    public static final float DEFAULT_CLEARANCE = 60;
+
+    private final float margin;
+    private final float clearance;
+
+    /**
+     * @param margin how far above the target altitude Robo is allowed to drop before boosting
+     */
+    public AltitudeBoostPolicy(float margin) {
+        this(margin, DEFAULT_CLEARANCE);
+    }
+
+    /**
+     * @param margin how far above the target altitude Robo is allowed to drop before boosting
+     * @param clearance how far from the ground or ceiling Robo flies past an obstacle
+     */
+    public AltitudeBoostPolicy(float margin, float clearance) {
+        this.margin = margin;
+        this.clearance = clearance;
+    }
+
+    public float getMargin() {
+        return margin;
+    }
+
+    public float getClearance() {
+        return clearance;
+    }
+
+    @Override
+    public boolean boost(World world) {
+        Robo robo = world.getRobo();
+
+        // find the closest obstacle Robo hasn't passed yet
+        ObstacleStore obstacles = world.getObstacles();
+        int next = -1;
+        for (int i = 0; i < obstacles.size(); i++) {
+            if (obstacles.getX(i) + World.OBSTACLE_WIDTH < robo.getPosition().x) continue;
+            if (next == -1 || obstacles.getX(i) < obstacles.getX(next)) {
+                next = i;
+            }
+        }
+
+        // fly above low obstacles and below high ones
+        float targetY = 240 - World.ROBO_HEIGHT / 2;
+        if (next != -1) {
+            float obstacleCenterY = obstacles.getY(next) + World.OBSTACLE_HEIGHT / 2;
+            targetY = obstacleCenterY > 240 ? clearance : 480 - World.ROBO_HEIGHT - clearance;
+        }
+        return robo.getPosition().y < targetY - margin;
+    }
+}
@@ -0,0 +1,17 @@
+package com.robovm.robomission.headless;
+
+import com.robovm.robomission.World;
+
+/**
+ * Decides whether Robo should boost, that is whether
+ * a finger is held down on screen, while playing.
+ */
+public interface BoostPolicy {
+    /**
+     * Called once per simulation tick while the world is
+     * in the {@link World.WorldState#Playing} state
+     * @param world the world
+     * @return whether to boost during the next tick
+     */
+    boolean boost(World world);
+}
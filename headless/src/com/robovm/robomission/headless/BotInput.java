@@ -0,0 +1,34 @@
+package com.robovm.robomission.headless;
+
+import com.robovm.robomission.WorldInput;
+
+/**
+ * {@link WorldInput} whose touch state is set by code
+ * instead of a finger on screen.
+ */
+public class BotInput implements WorldInput {
+    private boolean justTouched;
+    private boolean touched;
+
+    /**
+     * Sets the touch state reported for the next update
+     * @param touched whether a finger is held down
+     * @param justTouched whether the screen was tapped
+     */
+    public void set(boolean touched, boolean justTouched) {
+        this.touched = touched;
+        this.justTouched = justTouched;
+    }
+
+    @Override
+    public boolean justTouched() {
+        boolean result = justTouched;
+        justTouched = false;
+        return result;
+    }
+
+    @Override
+    public boolean isTouched() {
+        return touched;
+    }
+}
@@ -0,0 +1,95 @@
+package com.robovm.robomission.headless;
+
+/**
+ * Accumulates the outcome of finished episodes, that is
+ * runs from the start of play until game over. Not thread
+ * safe, use one instance per thread and {@link #merge(EpisodeStats)}
+ * them at the end.
+ */
+public class EpisodeStats {
+    // Scores are counted per value up to this one, higher
+    // scores are counted with it
+    public static final int MAX_TRACKED_SCORE = 127;
+
+    private final long[] scoreCounts = new long[MAX_TRACKED_SCORE + 1];
+    private long episodes;
+    private long totalScore;
+    private int maxScore;
+    private long totalTicks;
+    private long simulatedTicks;
+
+    /**
+     * Records a finished episode
+     * @param score the score at game over
+     * @param ticks the number of ticks Robo survived
+     */
+    public void record(int score, int ticks) {
+        episodes++;
+        scoreCounts[Math.min(score, MAX_TRACKED_SCORE)]++;
+        totalScore += score;
+        maxScore = Math.max(maxScore, score);
+        totalTicks += ticks;
+    }
+
+    /**
+     * @param ticks number of simulation ticks run, in any state
+     */
+    public void addSimulatedTicks(long ticks) {
+        simulatedTicks += ticks;
+    }
+
+    /**
+     * Adds the numbers of another instance to this one
+     * @param other the other stats
+     */
+    public void merge(EpisodeStats other) {
+        for (int i = 0; i < scoreCounts.length; i++) {
+            scoreCounts[i] += other.scoreCounts[i];
+        }
+        episodes += other.episodes;
+        totalScore += other.totalScore;
+        maxScore = Math.max(maxScore, other.maxScore);
+        totalTicks += other.totalTicks;
+        simulatedTicks += other.simulatedTicks;
+    }
+
+    public long getEpisodes() {
+        return episodes;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * Tells how far players get, e.g. to balance the difficulty ramp
+     * @param score the score, at most {@link #MAX_TRACKED_SCORE}
+     * @return the fraction of episodes that reached at least the given score
+     */
+    public float getFractionReaching(int score) {
+        if (episodes == 0) return 0;
+        long reached = 0;
+        for (int i = Math.min(score, MAX_TRACKED_SCORE); i < scoreCounts.length; i++) {
+            reached += scoreCounts[i];
+        }
+        return reached / (float)episodes;
+    }
+
+    public float getAverageScore() {
+        return episodes == 0 ? 0 : totalScore / (float)episodes;
+    }
+
+    /**
+     * @return the average number of ticks Robo survived per episode
+     */
+    public float getAverageSurvivalTicks() {
+        return episodes == 0 ? 0 : totalTicks / (float)episodes;
+    }
+
+    /**
+     * @return the total number of simulation ticks run
+     */
+    public long getSimulatedTicks() {
+        return simulatedTicks;
+    }
+}
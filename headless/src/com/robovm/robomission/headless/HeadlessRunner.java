@@ -0,0 +1,148 @@
+package com.robovm.robomission.headless;
+
+import com.robovm.robomission.World;
+import com.robovm.robomission.WorldSnapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many independent {@link WorldDriver}s on a plain JVM,
+ * without GL, audio or input. The worlds are split into
+ * one {@link WorldShard} per thread, the stats of the
+ * shards are merged once all threads are done.
+ *
+ * Usage: HeadlessRunner [worlds=1000] [ticks=36000] [policy=altitude|random]
+ * [threads=#cores] [seed=0] [snapshot=file] [tickRate=60]
+ *
+ * With a snapshot file all worlds start from the checkpoint
+ * in it instead of a new run, see {@link WorldSnapshot}.
+ * Collisions are swept, so lower tick rates trade accuracy
+ * of the flight path for speed without skipping obstacles.
+ */
+public class HeadlessRunner {
+    public static void main(String[] args) throws Exception {
+        int worlds = 1000;
+        int ticks = 36000;
+        String policy = "altitude";
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 0;
+        byte[] snapshot = null;
+        int tickRate = World.DEFAULT_TICK_RATE;
+
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            String key = keyValue[0];
+            String value = keyValue[1];
+            if (key.equals("worlds")) worlds = Integer.parseInt(value);
+            else if (key.equals("ticks")) ticks = Integer.parseInt(value);
+            else if (key.equals("policy")) policy = value;
+            else if (key.equals("threads")) threads = Integer.parseInt(value);
+            else if (key.equals("seed")) seed = Long.parseLong(value);
+            else if (key.equals("snapshot")) snapshot = Files.readAllBytes(Paths.get(value));
+            else if (key.equals("tickRate")) tickRate = Integer.parseInt(value);
+            else throw new IllegalArgumentException("Unknown argument " + key);
+        }
+
+        System.out.println("Running " + worlds + " worlds for " + ticks + " ticks each at " + tickRate + " ticks/s, policy " + policy + ", " + threads + " threads");
+        long start = System.nanoTime();
+        EpisodeStats stats = run(worlds, ticks, policy, threads, seed, snapshot, tickRate);
+        float seconds = (System.nanoTime() - start) / 1000000000f;
+
+        System.out.println("Elapsed:          " + seconds + "s");
+        System.out.println("Ticks:            " + stats.getSimulatedTicks());
+        System.out.println("Ticks per second: " + (long)(stats.getSimulatedTicks() / seconds));
+        System.out.println("Episodes:         " + stats.getEpisodes());
+        System.out.println("Average score:    " + stats.getAverageScore());
+        System.out.println("Max score:        " + stats.getMaxScore());
+        System.out.println("Average survival: " + stats.getAverageSurvivalTicks() + " ticks");
+    }
+
+    /**
+     * Simulates the given number of worlds in parallel
+     * @param worlds the number of worlds
+     * @param ticks the number of ticks to run each world for
+     * @param policy the name of the {@link BoostPolicy}, see {@link #createPolicy(String, long)}
+     * @param threads the number of threads
+     * @param seed the seed for the worlds and policies, world i uses seed + i
+     * @return the merged stats of all worlds
+     */
+    public static EpisodeStats run(int worlds, int ticks, String policy, int threads, long seed) throws Exception {
+        return run(worlds, ticks, policy, threads, seed, null);
+    }
+
+    /**
+     * Simulates the given number of worlds in parallel
+     * @param worlds the number of worlds
+     * @param ticks the number of ticks to run each world for
+     * @param policy the name of the {@link BoostPolicy}, see {@link #createPolicy(String, long)}
+     * @param threads the number of threads
+     * @param seed the seed for the worlds and policies, world i uses seed + i
+     * @param snapshot an encoded {@link WorldSnapshot} all worlds start from, or null
+     * @return the merged stats of all worlds
+     */
+    public static EpisodeStats run(int worlds, int ticks, String policy, int threads, long seed, byte[] snapshot) throws Exception {
+        return run(worlds, ticks, policy, threads, seed, snapshot, World.DEFAULT_TICK_RATE);
+    }
+
+    /**
+     * Simulates the given number of worlds in parallel
+     * @param worlds the number of worlds
+     * @param ticks the number of ticks to run each world for
+     * @param policy the name of the {@link BoostPolicy}, see {@link #createPolicy(String, long)}
+     * @param threads the number of threads
+     * @param seed the seed for the worlds and policies, world i uses seed + i
+     * @param snapshot an encoded {@link WorldSnapshot} all worlds start from, or null
+     * @param tickRate the number of ticks per second, ignored when starting from a snapshot
+     * @return the merged stats of all worlds
+     */
+    public static EpisodeStats run(int worlds, final int ticks, final String policy, int threads, final long seed, final byte[] snapshot, final int tickRate) throws Exception {
+        final PolicyFactory factory = new PolicyFactory() {
+            @Override
+            public BoostPolicy create(long worldSeed) {
+                return createPolicy(policy, worldSeed);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<EpisodeStats>> results = new ArrayList<Future<EpisodeStats>>();
+            int worldsPerShard = (worlds + threads - 1) / threads;
+            for (int shardStart = 0; shardStart < worlds; shardStart += worldsPerShard) {
+                final int from = shardStart;
+                final int to = Math.min(worlds, shardStart + worldsPerShard);
+                results.add(executor.submit(new Callable<EpisodeStats>() {
+                    @Override
+                    public EpisodeStats call() {
+                        return WorldShard.run(from, to, ticks, factory, seed, snapshot, tickRate);
+                    }
+                }));
+            }
+
+            EpisodeStats stats = new EpisodeStats();
+            for (Future<EpisodeStats> result : results) {
+                stats.merge(result.get());
+            }
+            return stats;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @param name the name of the policy, "altitude" or "random"
+     * @param seed the seed, used by random policies
+     * @return a new policy instance
+     */
+    public static BoostPolicy createPolicy(String name, long seed) {
+        if (name.equals("altitude")) return new AltitudeBoostPolicy(10);
+        if (name.equals("random")) return new RandomBoostPolicy(seed, 0.05f, 0.1f);
+        throw new IllegalArgumentException("Unknown policy " + name);
+    }
+}
@@ -0,0 +1,15 @@
+package com.robovm.robomission.headless;
+
+/**
+ * Creates the {@link BoostPolicy} of each world simulated by
+ * a {@link WorldShard}
+ */
+public interface PolicyFactory {
+    /**
+     * @param seed the seed of the world, random policies seed
+     * themselves with it so every world plays differently,
+     * deterministic ones ignore it
+     * @return a new policy instance
+     */
+    BoostPolicy create(long seed);
+}
@@ -0,0 +1,38 @@
+package com.robovm.robomission.headless;
+
+import java.util.Random;
+
+import com.robovm.robomission.World;
+
+/**
+ * Presses and releases at random. Each tick the current
+ * touch state flips with a fixed probability, which gives
+ * boosts and pauses of random length.
+ */
+public class RandomBoostPolicy implements BoostPolicy {
+    private final Random random;
+    private final float pressProbability;
+    private final float releaseProbability;
+    private boolean boosting;
+
+    /**
+     * @param seed seed of the random number generator
+     * @param pressProbability probability per tick to start boosting
+     * @param releaseProbability probability per tick to stop boosting
+     */
+    public RandomBoostPolicy(long seed, float pressProbability, float releaseProbability) {
+        this.random = new Random(seed);
+        this.pressProbability = pressProbability;
+        this.releaseProbability = releaseProbability;
+    }
+
+    @Override
+    public boolean boost(World world) {
+        if (boosting) {
+            boosting = random.nextFloat() >= releaseProbability;
+        } else {
+            boosting = random.nextFloat() < pressProbability;
+        }
+        return boosting;
+    }
+}
@@ -0,0 +1,59 @@
+package com.robovm.robomission.headless;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import com.robovm.robomission.ReplayPlayer;
+import com.robovm.robomission.World;
+
+/**
+ * Re-simulates a replay file recorded by the game and
+ * prints the outcome. If a score is given, exits with
+ * status 1 unless the replay reproduces exactly that
+ * score, e.g. to check a leaderboard submission.
+ *
+ * Usage: ReplayVerifier replay-file [expected-score]
+ */
+public class ReplayVerifier {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayVerifier replay-file [expected-score]");
+            System.exit(2);
+        }
+
+        byte[] recording = readFile(new File(args[0]));
+        long start = System.nanoTime();
+        World world = ReplayPlayer.play(recording);
+        float millis = (System.nanoTime() - start) / 1000000f;
+
+        System.out.println("Seed:    " + world.getRunSeed());
+        System.out.println("Ticks:   " + world.getRunTicks());
+        System.out.println("State:   " + world.getState());
+        System.out.println("Score:   " + world.getScore());
+        System.out.println("Elapsed: " + millis + "ms");
+
+        if (args.length > 1) {
+            int expected = Integer.parseInt(args[1]);
+            boolean valid = world.getState() == World.WorldState.GameOver && world.getScore() == expected;
+            System.out.println(valid ? "Score verified" : "Score mismatch, expected " + expected);
+            System.exit(valid ? 0 : 1);
+        }
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] data = new byte[(int)file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read == -1) throw new IOException("Unexpected end of " + file);
+                offset += read;
+            }
+            return data;
+        } finally {
+            in.close();
+        }
+    }
+}
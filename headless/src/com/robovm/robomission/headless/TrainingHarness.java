@@ -0,0 +1,259 @@
+package com.robovm.robomission.headless;
+
+import com.robovm.robomission.World;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Trains and evaluates {@link BoostPolicy}s on large numbers
+ * of independent worlds. The worlds are split recursively
+ * into {@link WorldShard}s on a {@link ForkJoinPool}, the
+ * stats of the shards are merged while joining.
+ *
+ * Modes:
+ * <ul>
+ * <li>train: random search over the parameters of the
+ * {@link AltitudeBoostPolicy}, refined around the best
+ * candidate and checked on worlds not used for the search</li>
+ * <li>evaluate: runs one policy and prints how far it gets,
+ * to balance the difficulty ramp of the level</li>
+ * <li>scaling: runs the same load on 1, 2, 4, ... threads
+ * and prints the throughput of each</li>
+ * </ul>
+ *
+ * Usage: TrainingHarness [mode=train|evaluate|scaling] [worlds=512] [ticks=18000]
+ * [candidates=32] [margin=10] [clearance=60] [threads=#cores] [seed=0]
+ */
+public class TrainingHarness {
+    // Seeds of the worlds used to check the trained policy
+    // are offset by this, so they were not seen in training
+    private static final long HOLDOUT_SEED_OFFSET = 1000000007L;
+
+    // Search ranges of the policy parameters
+    private static final float MAX_MARGIN = 60;
+    private static final float MAX_CLEARANCE = 150;
+
+    // Scores printed by the evaluate mode
+    private static final int[] MILESTONES = {1, 5, 10, 20, 40, 80};
+
+    private final ForkJoinPool pool;
+    private final int worlds;
+    private final int ticks;
+    private final int leafWorlds;
+
+    /**
+     * @param pool the pool to run the worlds on
+     * @param worlds the number of worlds per evaluation
+     * @param ticks the number of ticks to run each world for
+     */
+    public TrainingHarness(ForkJoinPool pool, int worlds, int ticks) {
+        this.pool = pool;
+        this.worlds = worlds;
+        this.ticks = ticks;
+        // a few shards per thread so the pool can balance
+        // shards whose worlds restart more often
+        this.leafWorlds = Math.max(1, worlds / (pool.getParallelism() * 4));
+    }
+
+    /**
+     * Runs every world with a policy from the given factory
+     * @param factory creates the policy of each world
+     * @param seed the seed of the first world, world i uses seed + i
+     * @return the merged stats of all worlds
+     */
+    public EpisodeStats evaluate(PolicyFactory factory, long seed) {
+        return pool.invoke(new ShardTask(factory, seed, 0, worlds, ticks, leafWorlds));
+    }
+
+    /**
+     * Evaluates an {@link AltitudeBoostPolicy}. Evaluations with
+     * the same seed run the same levels, so they are comparable
+     * @param margin see {@link AltitudeBoostPolicy#getMargin()}
+     * @param clearance see {@link AltitudeBoostPolicy#getClearance()}
+     * @param seed the seed of the first world
+     * @return the merged stats of all worlds
+     */
+    public EpisodeStats evaluateAltitude(final float margin, final float clearance, long seed) {
+        return evaluate(new PolicyFactory() {
+            @Override
+            public BoostPolicy create(long worldSeed) {
+                // the policy is deterministic, only the levels differ
+                return new AltitudeBoostPolicy(margin, clearance);
+            }
+        }, seed);
+    }
+
+    /**
+     * Simulates a range of worlds, splitting it in halves
+     * until it is small enough to run on a single thread
+     */
+    private static class ShardTask extends RecursiveTask<EpisodeStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final PolicyFactory factory;
+        private final long seed;
+        private final int from;
+        private final int to;
+        private final int ticks;
+        private final int leafWorlds;
+
+        ShardTask(PolicyFactory factory, long seed, int from, int to, int ticks, int leafWorlds) {
+            this.factory = factory;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.ticks = ticks;
+            this.leafWorlds = leafWorlds;
+        }
+
+        @Override
+        protected EpisodeStats compute() {
+            if (to - from > leafWorlds) {
+                int mid = (from + to) >>> 1;
+                ShardTask left = new ShardTask(factory, seed, from, mid, ticks, leafWorlds);
+                left.fork();
+                EpisodeStats stats = new ShardTask(factory, seed, mid, to, ticks, leafWorlds).compute();
+                stats.merge(left.join());
+                return stats;
+            }
+            return WorldShard.run(from, to, ticks, factory, seed, null, World.DEFAULT_TICK_RATE);
+        }
+    }
+
+    public static void main(String[] args) {
+        String mode = "train";
+        int worlds = 512;
+        int ticks = 18000;
+        int candidates = 32;
+        float margin = 10;
+        float clearance = AltitudeBoostPolicy.DEFAULT_CLEARANCE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 0;
+
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            String key = keyValue[0];
+            String value = keyValue[1];
+            if (key.equals("mode")) mode = value;
+            else if (key.equals("worlds")) worlds = Integer.parseInt(value);
+            else if (key.equals("ticks")) ticks = Integer.parseInt(value);
+            else if (key.equals("candidates")) candidates = Integer.parseInt(value);
+            else if (key.equals("margin")) margin = Float.parseFloat(value);
+            else if (key.equals("clearance")) clearance = Float.parseFloat(value);
+            else if (key.equals("threads")) threads = Integer.parseInt(value);
+            else if (key.equals("seed")) seed = Long.parseLong(value);
+            else throw new IllegalArgumentException("Unknown argument " + key);
+        }
+
+        System.out.println("Mode " + mode + ", " + worlds + " worlds for " + ticks + " ticks each, " + threads + " threads");
+        if (mode.equals("scaling")) {
+            scaling(worlds, ticks, threads, margin, clearance, seed);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            TrainingHarness harness = new TrainingHarness(pool, worlds, ticks);
+            if (mode.equals("train")) {
+                harness.train(candidates, seed);
+            } else if (mode.equals("evaluate")) {
+                long start = System.nanoTime();
+                EpisodeStats stats = harness.evaluateAltitude(margin, clearance, seed);
+                printThroughput(stats, System.nanoTime() - start);
+                printDifficulty(stats);
+            } else {
+                throw new IllegalArgumentException("Unknown mode " + mode);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Random search over the margin and clearance of the
+     * {@link AltitudeBoostPolicy}. Half of the candidates are
+     * drawn from the whole parameter range, the other half
+     * around the best one found so far.
+     * @param candidates the number of parameter sets to try
+     * @param seed the seed of the search and of the training worlds
+     */
+    public void train(int candidates, long seed) {
+        Random random = new Random(seed);
+        float bestMargin = 0;
+        float bestClearance = 0;
+        float bestScore = -1;
+        for (int i = 0; i < candidates; i++) {
+            float margin;
+            float clearance;
+            if (i < (candidates + 1) / 2 || bestScore < 0) {
+                margin = random.nextFloat() * MAX_MARGIN;
+                clearance = random.nextFloat() * MAX_CLEARANCE;
+            } else {
+                margin = clamp(bestMargin + (float)random.nextGaussian() * MAX_MARGIN / 10, 0, MAX_MARGIN);
+                clearance = clamp(bestClearance + (float)random.nextGaussian() * MAX_CLEARANCE / 10, 0, MAX_CLEARANCE);
+            }
+
+            EpisodeStats stats = evaluateAltitude(margin, clearance, seed);
+            boolean best = stats.getAverageScore() > bestScore;
+            if (best) {
+                bestScore = stats.getAverageScore();
+                bestMargin = margin;
+                bestClearance = clearance;
+            }
+            System.out.println(String.format("margin %6.2f clearance %6.2f: average score %7.3f, survival %8.1f ticks%s",
+                    margin, clearance, stats.getAverageScore(), stats.getAverageSurvivalTicks(), best ? " *" : ""));
+        }
+
+        EpisodeStats holdout = evaluateAltitude(bestMargin, bestClearance, seed + HOLDOUT_SEED_OFFSET);
+        System.out.println(String.format("Best: margin %.2f clearance %.2f, average score %.3f on training worlds, %.3f on holdout worlds",
+                bestMargin, bestClearance, bestScore, holdout.getAverageScore()));
+        printDifficulty(holdout);
+    }
+
+    private static void scaling(int worlds, int ticks, int maxThreads, float margin, float clearance, long seed) {
+        // warm up the JIT first, so one thread is not
+        // measured with interpreted code
+        ForkJoinPool warmUp = new ForkJoinPool(maxThreads);
+        new TrainingHarness(warmUp, worlds, ticks).evaluateAltitude(margin, clearance, seed);
+        warmUp.shutdown();
+
+        double baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long start = System.nanoTime();
+                EpisodeStats stats = new TrainingHarness(pool, worlds, ticks).evaluateAltitude(margin, clearance, seed);
+                double ticksPerSecond = stats.getSimulatedTicks() / ((System.nanoTime() - start) / 1000000000.0);
+                if (threads == 1) baseline = ticksPerSecond;
+                System.out.println(String.format("%3d threads: %12.0f ticks/s, speedup %5.2f, efficiency %3.0f%%",
+                        threads, ticksPerSecond, ticksPerSecond / baseline, ticksPerSecond / baseline / threads * 100));
+            } finally {
+                pool.shutdown();
+            }
+            if (threads == maxThreads) break;
+        }
+    }
+
+    private static void printThroughput(EpisodeStats stats, long nanos) {
+        float seconds = nanos / 1000000000f;
+        System.out.println("Elapsed:          " + seconds + "s");
+        System.out.println("Ticks per second: " + (long)(stats.getSimulatedTicks() / seconds));
+    }
+
+    private static void printDifficulty(EpisodeStats stats) {
+        System.out.println("Episodes:         " + stats.getEpisodes());
+        System.out.println("Average score:    " + stats.getAverageScore());
+        System.out.println("Max score:        " + stats.getMaxScore());
+        System.out.println("Average survival: " + stats.getAverageSurvivalTicks() + " ticks");
+        for (int score : MILESTONES) {
+            System.out.println(String.format("Reached %3d:      %5.1f%%", score, stats.getFractionReaching(score) * 100));
+        }
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,86 @@
+package com.robovm.robomission.headless;
+
+import com.robovm.robomission.ObjectObstacleStore;
+import com.robovm.robomission.ObstacleStore;
+import com.robovm.robomission.World;
+
+/**
+ * Drives a single {@link World} without a backend. Feeds the
+ * decisions of a {@link BoostPolicy} as touch input one tick
+ * at a time, restarts the game after each game over and
+ * reports finished episodes to an {@link EpisodeStats}.
+ */
+public class WorldDriver {
+    private final BotInput input = new BotInput();
+    private final World world;
+    private final BoostPolicy policy;
+    private final EpisodeStats stats;
+    private boolean boosting;
+    private int episodeTicks;
+
+    public WorldDriver(BoostPolicy policy, EpisodeStats stats) {
+        this(policy, stats, World.NUM_OBSTACLES);
+    }
+
+    /**
+     * @param policy decides when to boost
+     * @param stats receives finished episodes
+     * @param numObstacles the number of obstacles in the world
+     */
+    public WorldDriver(BoostPolicy policy, EpisodeStats stats, int numObstacles) {
+        this(policy, stats, numObstacles, new ObjectObstacleStore());
+    }
+
+    /**
+     * @param policy decides when to boost
+     * @param stats receives finished episodes
+     * @param numObstacles the number of obstacles in the world
+     * @param obstacles the empty store to keep the obstacles in
+     */
+    public WorldDriver(BoostPolicy policy, EpisodeStats stats, int numObstacles, ObstacleStore obstacles) {
+        this.policy = policy;
+        this.stats = stats;
+        this.world = new World(input, numObstacles, obstacles);
+    }
+
+    /**
+     * Runs the given number of simulation ticks
+     * @param ticks the number of ticks
+     */
+    public void step(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            switch (world.getState()) {
+                case Ready:
+                    // tap to start playing
+                    boosting = false;
+                    input.set(false, true);
+                    break;
+                case Playing:
+                    boolean boost = policy.boost(world);
+                    input.set(boost, boost && !boosting);
+                    boosting = boost;
+                    episodeTicks++;
+                    break;
+                case GameOver:
+                    // record the episode and tap to get back to the start screen
+                    stats.record(world.getScore(), episodeTicks);
+                    episodeTicks = 0;
+                    boosting = false;
+                    input.set(false, true);
+                    break;
+            }
+
+            // a delta of exactly one tick runs exactly one tick
+            world.update(world.getTickTime());
+            world.getEvents().drain();
+        }
+        stats.addSimulatedTicks(ticks);
+    }
+
+    /**
+     * @return the world driven by this instance
+     */
+    public World getWorld() {
+        return world;
+    }
+}
@@ -0,0 +1,53 @@
+package com.robovm.robomission.headless;
+
+import com.robovm.robomission.WorldSnapshot;
+
+/**
+ * Simulates a range of independent worlds on the calling
+ * thread, the unit of work the {@link HeadlessRunner} and
+ * the {@link TrainingHarness} spread over their threads.
+ * Every world is stepped a batch of ticks at a time before
+ * moving on to the next one, and all of them report to the
+ * shard's own {@link EpisodeStats}, so shards never share
+ * mutable state.
+ */
+public class WorldShard {
+    // Number of ticks a world is stepped before moving
+    // on to the next world of the shard
+    private static final int BATCH_TICKS = 60;
+
+    /**
+     * Simulates the worlds from index from to index to
+     * @param from the index of the first world
+     * @param to the index after the last world
+     * @param ticks the number of ticks to run each world for
+     * @param factory creates the policy of each world
+     * @param seed the seed of world 0, world i uses seed + i
+     * @param snapshot an encoded {@link WorldSnapshot} all worlds start from, or null
+     * @param tickRate the number of ticks per second, ignored when starting from a snapshot
+     * @return the stats of the worlds of the shard
+     */
+    public static EpisodeStats run(int from, int to, int ticks, PolicyFactory factory, long seed, byte[] snapshot, int tickRate) {
+        EpisodeStats stats = new EpisodeStats();
+        // each shard decodes its own copy, restoring is not thread safe
+        WorldSnapshot checkpoint = snapshot != null ? WorldSnapshot.fromByteArray(snapshot) : null;
+        WorldDriver[] drivers = new WorldDriver[to - from];
+        for (int i = 0; i < drivers.length; i++) {
+            drivers[i] = new WorldDriver(factory.create(seed + from + i), stats);
+            drivers[i].getWorld().setTickRate(tickRate);
+            if (checkpoint != null) {
+                checkpoint.restore(drivers[i].getWorld());
+            } else {
+                drivers[i].getWorld().restart(seed + from + i);
+            }
+        }
+
+        for (int tick = 0; tick < ticks; tick += BATCH_TICKS) {
+            int batch = Math.min(BATCH_TICKS, ticks - tick);
+            for (WorldDriver driver : drivers) {
+                driver.step(batch);
+            }
+        }
+        return stats;
+    }
+}
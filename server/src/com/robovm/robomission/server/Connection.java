@@ -0,0 +1,155 @@
+package com.robovm.robomission.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A client of the {@link GameServer}. Owned by the
+ * {@link Shard} its room lives on, only touched by the
+ * shard's thread once handed over. Messages to the client
+ * are queued in a fixed size buffer, a client that falls
+ * so far behind that the buffer overflows is dropped.
+ */
+public class Connection {
+    public static final int IN_BUFFER_SIZE = 256;
+    public static final int OUT_BUFFER_SIZE = 16 * 1024;
+
+    private final SocketChannel channel;
+    private final int roomId;
+    private final ByteBuffer in = ByteBuffer.allocate(IN_BUFFER_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocate(OUT_BUFFER_SIZE);
+    private SelectionKey key;
+    private Room room;
+    private int slot = -1;
+    private int[] baseline;
+
+    /**
+     * @param channel the non-blocking channel of the client
+     * @param roomId the room the client was matched into
+     */
+    public Connection(SocketChannel channel, int roomId) {
+        this.channel = channel;
+        this.roomId = roomId;
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Called once the client took a slot in a room
+     * @param key the key the channel is registered with
+     * @param room the room
+     * @param slot the slot of the client
+     */
+    public void attach(SelectionKey key, Room room, int slot) {
+        this.key = key;
+        this.room = room;
+        this.slot = slot;
+    }
+
+    /**
+     * Reads the pending input messages and passes them to the room
+     * @return false if the client closed the connection
+     * @throws IOException if reading failed or the client sent garbage
+     */
+    public boolean read() throws IOException {
+        if (channel.read(in) < 0) return false;
+        in.flip();
+        int limit = in.limit();
+        byte type;
+        while ((type = Protocol.nextFrame(in)) != 0) {
+            if (type != Protocol.INPUT || in.remaining() != 1) {
+                throw new IOException("Unexpected message " + type + " from " + channel);
+            }
+            room.onInput(slot, in.get());
+            in.limit(limit);
+        }
+        in.compact();
+        if (!in.hasRemaining()) throw new IOException("Message too long from " + channel);
+        return true;
+    }
+
+    /**
+     * Queues the message telling the client where it was placed
+     * @param players the number of players in the room
+     * @param tickRate the number of ticks per second
+     * @param sendInterval the number of ticks between states
+     */
+    public void sendWelcome(int players, int tickRate, int sendInterval) {
+        int start = Protocol.beginFrame(out, Protocol.WELCOME);
+        out.putInt(roomId);
+        out.put((byte)slot);
+        out.put((byte)players);
+        out.putShort((short)tickRate);
+        out.putShort((short)sendInterval);
+        Protocol.endFrame(out, start);
+    }
+
+    /**
+     * Queues the state of the race, encoded against the last state sent
+     * @param tick the tick of the room
+     * @param fields the fields of the race, see {@link RaceState}
+     * @param count the number of fields
+     * @param checksum the checksum of the fields
+     * @return false if the client fell too far behind to queue the state
+     */
+    public boolean sendState(int tick, int[] fields, int count, int checksum) {
+        if (out.remaining() < Protocol.HEADER_SIZE + 8 + DeltaCodec.maxEncodedSize(count)) return false;
+        if (baseline == null || baseline.length != count) {
+            baseline = new int[count];
+        }
+        int start = Protocol.beginFrame(out, Protocol.STATE);
+        out.putInt(tick);
+        out.putInt(checksum);
+        DeltaCodec.encode(baseline, fields, count, out);
+        Protocol.endFrame(out, start);
+        return true;
+    }
+
+    /**
+     * Writes as much of the queued messages as the socket takes,
+     * waits for the channel to become writable if it took less
+     * @return the number of bytes written
+     * @throws IOException if writing failed
+     */
+    public int flush() throws IOException {
+        if (out.position() == 0) return 0;
+        out.flip();
+        int written = channel.write(out);
+        out.compact();
+        int ops = out.position() == 0 ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+        return written;
+    }
+
+    /**
+     * Closes the channel, ignoring errors
+     */
+    public void close() {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing we can do
+        }
+    }
+}
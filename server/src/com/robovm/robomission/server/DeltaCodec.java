@@ -0,0 +1,105 @@
+package com.robovm.robomission.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes an array of ints as the difference to the array
+ * sent before. The connection is reliable and ordered, so
+ * the receiver always holds the same baseline as the
+ * sender and no acknowledgements are needed.
+ *
+ * The fields are written in groups of 8: a byte marking
+ * which fields changed, followed by the change of each of
+ * them as zig-zag varint. Most of the race state is static
+ * or moves a little per tick, so a field that changed
+ * usually takes a single byte and one that didn't a bit.
+ */
+public class DeltaCodec {
+    /**
+     * @param count the number of fields
+     * @return the most bytes {@link #encode(int[], int[], int, ByteBuffer)} writes
+     */
+    public static int maxEncodedSize(int count) {
+        return 5 + (count + 7) / 8 + count * 5;
+    }
+
+    /**
+     * Writes the fields as the difference to the baseline and
+     * updates the baseline to the fields
+     * @param baseline the fields the receiver holds, all 0 initially
+     * @param fields the new fields
+     * @param count the number of fields
+     * @param out the buffer to write to
+     */
+    public static void encode(int[] baseline, int[] fields, int count, ByteBuffer out) {
+        writeVarint(out, count);
+        for (int group = 0; group < count; group += 8) {
+            int maskPosition = out.position();
+            out.put((byte)0);
+            int mask = 0;
+            int end = Math.min(group + 8, count);
+            for (int i = group; i < end; i++) {
+                int delta = fields[i] - baseline[i];
+                if (delta == 0) continue;
+                mask |= 1 << (i - group);
+                writeVarint(out, (delta << 1) ^ (delta >> 31));
+                baseline[i] = fields[i];
+            }
+            out.put(maskPosition, (byte)mask);
+        }
+    }
+
+    /**
+     * Applies encoded differences to a baseline
+     * @param baseline the fields decoded last, all 0 initially.
+     * Reallocated if the number of fields changed
+     * @param in the buffer to read from
+     * @return the updated fields, the given baseline or a new array
+     */
+    public static int[] decode(int[] baseline, ByteBuffer in) {
+        int count = readVarint(in);
+        if (baseline == null || baseline.length != count) {
+            baseline = new int[count];
+        }
+        for (int group = 0; group < count; group += 8) {
+            int mask = in.get() & 0xff;
+            int end = Math.min(group + 8, count);
+            for (int i = group; i < end; i++) {
+                if ((mask & (1 << (i - group))) == 0) continue;
+                int zigzag = readVarint(in);
+                baseline[i] += (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * @param fields the fields
+     * @param count the number of fields
+     * @return a hash of the fields, sent along so receivers can check what they decoded
+     */
+    public static int checksum(int[] fields, int count) {
+        int hash = 1;
+        for (int i = 0; i < count; i++) {
+            hash = 31 * hash + fields[i];
+        }
+        return hash;
+    }
+
+    private static void writeVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.put((byte)((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte)value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
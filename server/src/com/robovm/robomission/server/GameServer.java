@@ -0,0 +1,167 @@
+package com.robovm.robomission.server;
+
+import com.robovm.robomission.World;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Authoritative server for head-to-head races. Clients
+ * only send their touches, the server simulates a
+ * {@link World} per player and sends every player the
+ * state of their {@link Room}, delta encoded, see
+ * {@link Protocol}.
+ *
+ * Rooms are spread over a few {@link Shard}s, one thread
+ * each, so thousands of rooms run on as many threads as
+ * there are cores. An acceptor thread matches clients into
+ * rooms in the order they connect.
+ *
+ * Usage: GameServer [port=7777] [shards=#cores] [players=2]
+ * [tickRate=60] [sendInterval=3] [report=5]
+ *
+ * Every report interval the server prints its
+ * {@link ServerStats}: the CPU time per tick and per room
+ * and how many rooms a core could run.
+ */
+public class GameServer {
+    // The number of pending connections the OS queues for
+    // us, load tests connect thousands of clients at once
+    private static final int BACKLOG = 1024;
+
+    private final int port;
+    private final int playersPerRoom;
+    private final int tickRate;
+    private final Shard[] shards;
+    private ServerSocketChannel serverChannel;
+    private int accepted;
+
+    /**
+     * @param port the port to listen on, 0 to pick a free one
+     * @param shards the number of shard threads
+     * @param playersPerRoom the number of players racing in a room
+     * @param tickRate the number of ticks per second
+     * @param sendInterval the number of ticks between states sent to the players
+     * @throws IOException if a selector can't be opened
+     */
+    public GameServer(int port, int shards, int playersPerRoom, int tickRate, int sendInterval) throws IOException {
+        this.port = port;
+        this.playersPerRoom = playersPerRoom;
+        this.tickRate = tickRate;
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(playersPerRoom, tickRate, sendInterval);
+        }
+    }
+
+    /**
+     * Starts listening and ticking
+     * @throws IOException if the port can't be bound
+     */
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(port), BACKLOG);
+        for (int i = 0; i < shards.length; i++) {
+            Thread thread = new Thread(shards[i], "room-shard-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+
+                // Fill rooms one after another, rooms are
+                // spread round robin over the shards
+                int roomId = accepted++ / playersPerRoom;
+                shards[roomId % shards.length].add(new Connection(channel, roomId));
+            }
+        } catch (ClosedChannelException e) {
+            // stopped
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return the counters of all shards so far
+     */
+    public ServerStats getStats() {
+        ServerStats stats = new ServerStats(tickRate);
+        for (Shard shard : shards) {
+            shard.addTo(stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Stops accepting clients and ticking, closing all connections
+     */
+    public void stop() {
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            // nothing we can do
+        }
+        for (Shard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Protocol.DEFAULT_PORT;
+        int shards = Runtime.getRuntime().availableProcessors();
+        int players = 2;
+        int tickRate = World.DEFAULT_TICK_RATE;
+        int sendInterval = 3;
+        int report = 5;
+
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            String key = keyValue[0];
+            int value = Integer.parseInt(keyValue[1]);
+            if (key.equals("port")) port = value;
+            else if (key.equals("shards")) shards = value;
+            else if (key.equals("players")) players = value;
+            else if (key.equals("tickRate")) tickRate = value;
+            else if (key.equals("sendInterval")) sendInterval = value;
+            else if (key.equals("report")) report = value;
+            else throw new IllegalArgumentException("Unknown argument " + key);
+        }
+
+        GameServer server = new GameServer(port, shards, players, tickRate, sendInterval);
+        server.start();
+        System.out.println("Listening on port " + server.getPort() + ", " + shards + " shards, " + players + " players per room, " + tickRate + " ticks/s");
+
+        ServerStats last = server.getStats();
+        while (true) {
+            Thread.sleep(report * 1000L);
+            ServerStats stats = server.getStats();
+            System.out.println(stats.since(last));
+            last = stats;
+        }
+    }
+}
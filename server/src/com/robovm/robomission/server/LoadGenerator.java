@@ -0,0 +1,159 @@
+package com.robovm.robomission.server;
+
+import com.robovm.robomission.World;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Connects many {@link LoopbackClient}s to a
+ * {@link GameServer} and reports what they received. All
+ * clients run on a single selector thread. Without a host
+ * the server is started in the same process on a free
+ * port, so a whole load test runs on localhost, and the
+ * report includes the server's CPU time per tick and the
+ * rooms it could run per core.
+ *
+ * Usage: LoadGenerator [clients=1000] [seconds=30] [host=] [port=7777]
+ * [shards=#cores] [players=2] [tickRate=60] [sendInterval=3]
+ */
+public class LoadGenerator {
+    // Clients connected per select round, so the accept
+    // backlog of the server doesn't overflow
+    private static final int CONNECTS_PER_ROUND = 100;
+
+    public static void main(String[] args) throws Exception {
+        int clients = 1000;
+        int seconds = 30;
+        String host = null;
+        int port = Protocol.DEFAULT_PORT;
+        int shards = Runtime.getRuntime().availableProcessors();
+        int players = 2;
+        int tickRate = World.DEFAULT_TICK_RATE;
+        int sendInterval = 3;
+
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (keyValue.length != 2) throw new IllegalArgumentException("Expected key=value, got " + arg);
+            String key = keyValue[0];
+            String value = keyValue[1];
+            if (key.equals("clients")) clients = Integer.parseInt(value);
+            else if (key.equals("seconds")) seconds = Integer.parseInt(value);
+            else if (key.equals("host")) host = value;
+            else if (key.equals("port")) port = Integer.parseInt(value);
+            else if (key.equals("shards")) shards = Integer.parseInt(value);
+            else if (key.equals("players")) players = Integer.parseInt(value);
+            else if (key.equals("tickRate")) tickRate = Integer.parseInt(value);
+            else if (key.equals("sendInterval")) sendInterval = Integer.parseInt(value);
+            else throw new IllegalArgumentException("Unknown argument " + key);
+        }
+
+        GameServer server = null;
+        if (host == null) {
+            server = new GameServer(0, shards, players, tickRate, sendInterval);
+            server.start();
+            host = "localhost";
+            port = server.getPort();
+            System.out.println("Started server on port " + port + ", " + shards + " shards, " + players + " players per room, " + tickRate + " ticks/s");
+        }
+
+        System.out.println("Connecting " + clients + " clients to " + host + ":" + port + " for " + seconds + "s");
+        List<LoopbackClient> connected = run(new InetSocketAddress(host, port), clients, seconds * 1000L, server);
+
+        long states = 0;
+        long stateBytes = 0;
+        long rawStateBytes = 0;
+        long checksumErrors = 0;
+        long scores = 0;
+        int joined = 0;
+        for (LoopbackClient client : connected) {
+            if (client.isJoined()) joined++;
+            states += client.getStates();
+            stateBytes += client.getStateBytes();
+            rawStateBytes += client.getRawStateBytes();
+            checksumErrors += client.getChecksumErrors();
+            scores += client.getScore();
+        }
+        ServerStats stats = server != null ? server.getStats() : null;
+        for (LoopbackClient client : connected) {
+            client.close();
+        }
+
+        System.out.println("Clients joined:    " + joined + " of " + clients);
+        System.out.println("States received:   " + states);
+        System.out.println("Bytes per state:   " + (states == 0 ? 0 : (float)stateBytes / states) + " (" + (states == 0 ? 0 : (float)rawStateBytes / states) + " without deltas)");
+        System.out.println("Bytes per client/s " + (float)stateBytes / Math.max(1, joined) / seconds);
+        System.out.println("Checksum errors:   " + checksumErrors);
+        System.out.println("Average score:     " + (float)scores / Math.max(1, connected.size()));
+        if (server != null) {
+            System.out.println("Server:            " + stats);
+            server.stop();
+        }
+    }
+
+    /**
+     * Connects the clients and lets them play
+     * @param address the address of the server
+     * @param clients the number of clients
+     * @param millis how long to play
+     * @param server the server in this process, its stats are printed every second, or null
+     * @return the clients that are still connected
+     * @throws IOException if the selector fails
+     */
+    public static List<LoopbackClient> run(InetSocketAddress address, int clients, long millis, GameServer server) throws IOException {
+        Selector selector = Selector.open();
+        List<LoopbackClient> connected = new ArrayList<LoopbackClient>();
+        Random random = new Random(0);
+        int disconnected = 0;
+        long end = System.currentTimeMillis() + millis;
+        long nextReport = System.currentTimeMillis() + 1000;
+        ServerStats lastStats = server != null ? server.getStats() : null;
+
+        try {
+            while (System.currentTimeMillis() < end) {
+                for (int i = 0; i < CONNECTS_PER_ROUND && connected.size() + disconnected < clients; i++) {
+                    connected.add(LoopbackClient.connect(address, selector, random.nextFloat() * 20));
+                }
+
+                selector.select(100);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    LoopbackClient client = (LoopbackClient)key.attachment();
+                    boolean open;
+                    try {
+                        open = client.handle();
+                    } catch (IOException e) {
+                        open = false;
+                    }
+                    if (!open) {
+                        client.close();
+                        connected.remove(client);
+                        disconnected++;
+                    }
+                }
+
+                if (System.currentTimeMillis() >= nextReport) {
+                    nextReport += 1000;
+                    String report = connected.size() + " connected, " + disconnected + " disconnected";
+                    if (server != null) {
+                        ServerStats stats = server.getStats();
+                        report += "  " + stats.since(lastStats);
+                        lastStats = stats;
+                    }
+                    System.out.println(report);
+                }
+            }
+        } finally {
+            selector.close();
+        }
+        return connected;
+    }
+}
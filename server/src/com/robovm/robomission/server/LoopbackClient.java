@@ -0,0 +1,213 @@
+package com.robovm.robomission.server;
+
+import com.robovm.robomission.World;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A test client of the {@link GameServer}. Decodes the race
+ * states it is sent, checks them against their checksum and
+ * flies its Robo like the altitude bot of the headless
+ * runner: it holds the screen while Robo is below the
+ * altitude that clears the next obstacle. Many clients share
+ * a single selector, see {@link LoadGenerator}.
+ */
+public class LoopbackClient {
+    public static final int IN_BUFFER_SIZE = 16 * 1024;
+
+    // How far from the ground or ceiling Robo flies past an obstacle
+    private static final float CLEARANCE = 60;
+
+    private final SocketChannel channel;
+    private final float margin;
+    private final ByteBuffer in = ByteBuffer.allocate(IN_BUFFER_SIZE);
+    private final ByteBuffer out = ByteBuffer.allocate(64);
+    private SelectionKey key;
+    private int roomId = -1;
+    private int slot;
+    private int players;
+    private int[] fields;
+    private int tick;
+    private boolean touched;
+
+    private long states;
+    private long stateBytes;
+    private long rawStateBytes;
+    private long checksumErrors;
+
+    /**
+     * Starts connecting to a server
+     * @param address the address of the server
+     * @param selector the selector to register with
+     * @param margin how far above the target altitude Robo may drop before boosting
+     * @return the client
+     * @throws IOException if the connection can't be started
+     */
+    public static LoopbackClient connect(InetSocketAddress address, Selector selector, float margin) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        LoopbackClient client = new LoopbackClient(channel, margin);
+        client.key = channel.register(selector, SelectionKey.OP_CONNECT, client);
+        channel.connect(address);
+        return client;
+    }
+
+    private LoopbackClient(SocketChannel channel, float margin) {
+        this.channel = channel;
+        this.margin = margin;
+    }
+
+    /**
+     * Handles the ready operations of the client's key
+     * @return false if the server closed the connection
+     * @throws IOException if the connection failed
+     */
+    public boolean handle() throws IOException {
+        if (key.isConnectable()) {
+            channel.finishConnect();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+        if (key.isReadable() && !read()) {
+            return false;
+        }
+        if (key.isValid() && key.isWritable()) {
+            flush();
+        }
+        return true;
+    }
+
+    private boolean read() throws IOException {
+        if (channel.read(in) < 0) return false;
+        in.flip();
+        int limit = in.limit();
+        byte type;
+        while ((type = Protocol.nextFrame(in)) != 0) {
+            if (type == Protocol.WELCOME) {
+                roomId = in.getInt();
+                slot = in.get();
+                players = in.get();
+            } else if (type == Protocol.STATE) {
+                int length = in.remaining();
+                tick = in.getInt();
+                int checksum = in.getInt();
+                fields = DeltaCodec.decode(fields, in);
+                if (DeltaCodec.checksum(fields, fields.length) != checksum) {
+                    checksumErrors++;
+                }
+                states++;
+                stateBytes += Protocol.HEADER_SIZE + length;
+                rawStateBytes += Protocol.HEADER_SIZE + 8 + fields.length * 4;
+                fly();
+            } else {
+                throw new IOException("Unexpected message " + type);
+            }
+            in.position(in.limit());
+            in.limit(limit);
+        }
+        in.compact();
+        return true;
+    }
+
+    private void fly() throws IOException {
+        int stride = fields.length / players;
+        int offset = slot * stride;
+        float x = RaceState.dequantize(fields[offset + RaceState.ROBO_X]);
+        float y = RaceState.dequantize(fields[offset + RaceState.ROBO_Y]);
+
+        // fly above low obstacles and below high ones, as seen
+        // at the closest obstacle Robo hasn't passed yet
+        float nextX = Float.MAX_VALUE;
+        float targetY = 240 - World.ROBO_HEIGHT / 2;
+        for (int field = offset + RaceState.OBSTACLES; field < offset + stride; field += 3) {
+            float obstacleX = RaceState.dequantize(fields[field]);
+            if (obstacleX + World.OBSTACLE_WIDTH < x || obstacleX >= nextX) continue;
+            nextX = obstacleX;
+            float obstacleCenterY = RaceState.dequantize(fields[field + 1]) + World.OBSTACLE_HEIGHT / 2;
+            targetY = obstacleCenterY > 240 ? CLEARANCE : 480 - World.ROBO_HEIGHT - CLEARANCE;
+        }
+        boolean boost = RaceState.getState(fields, offset) == World.WorldState.Playing && y < targetY - margin;
+        if (boost == touched) return;
+        touched = boost;
+        int start = Protocol.beginFrame(out, Protocol.INPUT);
+        out.put((byte)(boost ? Protocol.TOUCHED | Protocol.TAPPED : 0));
+        Protocol.endFrame(out, start);
+        flush();
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+        int ops = out.position() == 0 ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Closes the connection, ignoring errors
+     */
+    public void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing we can do
+        }
+    }
+
+    /**
+     * @return whether the server placed the client in a room
+     */
+    public boolean isJoined() {
+        return roomId >= 0;
+    }
+
+    /**
+     * @return the tick of the last state received
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the score of the client's Robo as of the last state
+     */
+    public int getScore() {
+        return fields == null ? 0 : fields[slot * fields.length / players + RaceState.SCORE];
+    }
+
+    /**
+     * @return the number of states received
+     */
+    public long getStates() {
+        return states;
+    }
+
+    /**
+     * @return the number of bytes of the states received
+     */
+    public long getStateBytes() {
+        return stateBytes;
+    }
+
+    /**
+     * @return the number of bytes the states would have taken without delta encoding
+     */
+    public long getRawStateBytes() {
+        return rawStateBytes;
+    }
+
+    /**
+     * @return the number of states that didn't decode to what the server sent
+     */
+    public long getChecksumErrors() {
+        return checksumErrors;
+    }
+}
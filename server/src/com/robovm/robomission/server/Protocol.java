@@ -0,0 +1,75 @@
+package com.robovm.robomission.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The messages exchanged between the {@link GameServer} and
+ * its clients over TCP. Every message is a frame of an
+ * unsigned short length, counting the bytes that follow,
+ * a type byte and the payload.
+ *
+ * Server to client:
+ * WELCOME room (int), slot (byte), players (byte), tick rate (short), send interval (short)
+ * STATE tick (int), checksum (int), the race state delta encoded by {@link DeltaCodec}
+ *
+ * Client to server:
+ * INPUT flags (byte), {@link #TOUCHED} and {@link #TAPPED}
+ *
+ * The server owns the simulation, clients only send their
+ * touches and draw what they are told.
+ */
+public class Protocol {
+    public static final int DEFAULT_PORT = 7777;
+
+    public static final byte WELCOME = 1;
+    public static final byte STATE = 2;
+    public static final byte INPUT = 3;
+
+    // Flags of an INPUT message
+    public static final int TOUCHED = 1;
+    public static final int TAPPED = 2;
+
+    // The length prefix and the type byte
+    public static final int HEADER_SIZE = 3;
+
+    /**
+     * Starts a frame, finish it with {@link #endFrame(ByteBuffer, int)}
+     * @param out the buffer to write to
+     * @param type the message type
+     * @return the position of the frame, to pass to {@link #endFrame(ByteBuffer, int)}
+     */
+    public static int beginFrame(ByteBuffer out, byte type) {
+        int start = out.position();
+        out.putShort((short)0);
+        out.put(type);
+        return start;
+    }
+
+    /**
+     * Writes the length of a frame once its payload was written
+     * @param out the buffer the frame was written to
+     * @param start the position returned by {@link #beginFrame(ByteBuffer, byte)}
+     */
+    public static void endFrame(ByteBuffer out, int start) {
+        out.putShort(start, (short)(out.position() - start - 2));
+    }
+
+    /**
+     * Finds the next complete frame in a buffer being read from.
+     * On success the buffer is positioned at the payload and its
+     * limit set to the end of the frame, the caller restores the
+     * limit after reading it.
+     * @param in the buffer, flipped for reading
+     * @return the type of the frame, or 0 if it is not complete yet
+     */
+    public static byte nextFrame(ByteBuffer in) {
+        if (in.remaining() < HEADER_SIZE) return 0;
+        int length = in.getShort(in.position()) & 0xffff;
+        if (in.remaining() < length + 2) return 0;
+        int end = in.position() + length + 2;
+        in.position(in.position() + 2);
+        byte type = in.get();
+        in.limit(end);
+        return type;
+    }
+}
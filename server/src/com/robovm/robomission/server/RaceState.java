@@ -0,0 +1,87 @@
+package com.robovm.robomission.server;
+
+import com.robovm.robomission.ObstacleStore;
+import com.robovm.robomission.Robo;
+import com.robovm.robomission.World;
+
+/**
+ * The state of all worlds of a race, quantized to ints so
+ * it can be delta encoded, see {@link DeltaCodec}. Each
+ * world takes {@link #stride(int)} fields, world i starts
+ * at field i * stride. Positions and speeds are stored in
+ * tenths of a unit, rotations in tenths of a degree.
+ */
+public class RaceState {
+    public static final float SCALE = 10;
+
+    private static final World.WorldState[] STATES = World.WorldState.values();
+
+    // Fields of a world
+    public static final int STATE = 0;
+    public static final int SCORE = 1;
+    public static final int TICKS = 2;
+    public static final int ROBO_X = 3;
+    public static final int ROBO_Y = 4;
+    public static final int ROBO_VELOCITY_Y = 5;
+    public static final int ROBO_FUEL = 6;
+    public static final int FUEL_X = 7;
+    public static final int FUEL_Y = 8;
+    // Followed by x, y and rotation of each obstacle
+    public static final int OBSTACLES = 9;
+
+    /**
+     * @param numObstacles the number of obstacles per world
+     * @return the number of fields per world
+     */
+    public static int stride(int numObstacles) {
+        return OBSTACLES + numObstacles * 3;
+    }
+
+    /**
+     * Quantizes the state of a world
+     * @param world the world
+     * @param fields the fields to write to
+     * @param offset the index of the world's first field
+     */
+    public static void capture(World world, int[] fields, int offset) {
+        Robo robo = world.getRobo();
+        fields[offset + STATE] = world.getState().ordinal();
+        fields[offset + SCORE] = world.getScore();
+        fields[offset + TICKS] = world.getRunTicks();
+        fields[offset + ROBO_X] = quantize(robo.getPosition().x);
+        fields[offset + ROBO_Y] = quantize(robo.getPosition().y);
+        fields[offset + ROBO_VELOCITY_Y] = quantize(robo.getVelocity().y);
+        fields[offset + ROBO_FUEL] = quantize(robo.getFuel());
+        fields[offset + FUEL_X] = quantize(world.getFuel().getPosition().x);
+        fields[offset + FUEL_Y] = quantize(world.getFuel().getPosition().y);
+
+        ObstacleStore obstacles = world.getObstacles();
+        int field = offset + OBSTACLES;
+        for (int i = 0; i < obstacles.size(); i++) {
+            fields[field++] = quantize(obstacles.getX(i));
+            fields[field++] = quantize(obstacles.getY(i));
+            fields[field++] = quantize(obstacles.getRotation(i) % 360);
+        }
+    }
+
+    /**
+     * @param fields the fields of a race
+     * @param offset the index of the world's first field
+     * @return the state of the world
+     */
+    public static World.WorldState getState(int[] fields, int offset) {
+        return STATES[fields[offset + STATE]];
+    }
+
+    /**
+     * @param value the quantized value
+     * @return the value in world units or degrees
+     */
+    public static float dequantize(int value) {
+        return value / SCALE;
+    }
+
+    private static int quantize(float value) {
+        return Math.round(value * SCALE);
+    }
+}
@@ -0,0 +1,189 @@
+package com.robovm.robomission.server;
+
+import com.robovm.robomission.World;
+
+import java.util.Random;
+
+/**
+ * A head-to-head race. Every player flies their own
+ * {@link World}, all worlds start from the same seed, so
+ * everyone faces the same course. The race starts a moment
+ * after all slots are taken, and again a moment after every
+ * player crashed, for as long as anyone is connected.
+ *
+ * The worlds are stepped one tick at a time with the last
+ * input each player sent. A tap that was released before
+ * the next tick still boosts for that tick.
+ */
+public class Room {
+    // How long the results of a race are shown before the next one starts
+    public static final float RESTART_DELAY_SECONDS = 2;
+
+    private final int id;
+    private final World[] worlds;
+    private final Connection[] players;
+    private final boolean[] touched;
+    private final boolean[] tapped;
+    private final int[] fields;
+    private final int stride;
+    private final int restartDelayTicks;
+    private final Random random;
+    private int joined;
+    private int connected;
+    private int tick;
+    private boolean racing;
+    private boolean starting;
+    private int finishedTicks;
+
+    /**
+     * @param id the id of the room
+     * @param players the number of players racing
+     * @param tickRate the number of ticks per second
+     */
+    public Room(int id, int players, int tickRate) {
+        this.id = id;
+        this.worlds = new World[players];
+        this.players = new Connection[players];
+        this.touched = new boolean[players];
+        this.tapped = new boolean[players];
+        for (int i = 0; i < players; i++) {
+            // input is passed to each tick directly
+            worlds[i] = new World(null);
+            worlds[i].setTickRate(tickRate);
+        }
+        this.stride = RaceState.stride(worlds[0].getObstacles().size());
+        this.fields = new int[stride * players];
+        this.restartDelayTicks = (int)(RESTART_DELAY_SECONDS * tickRate);
+        this.random = new Random(id);
+    }
+
+    /**
+     * @param connection the player
+     * @return the slot the player took, -1 if the room is full
+     */
+    public int join(Connection connection) {
+        if (joined == players.length) return -1;
+        players[joined] = connection;
+        connected++;
+        return joined++;
+    }
+
+    /**
+     * Frees the slot of a player that disconnected, its world
+     * flies on without input until it crashes
+     * @param slot the slot of the player
+     */
+    public void leave(int slot) {
+        players[slot] = null;
+        touched[slot] = false;
+        tapped[slot] = false;
+        connected--;
+    }
+
+    /**
+     * @param slot the slot of the player
+     * @param flags the flags of the input message, see {@link Protocol#INPUT}
+     */
+    public void onInput(int slot, int flags) {
+        touched[slot] = (flags & Protocol.TOUCHED) != 0;
+        if ((flags & Protocol.TAPPED) != 0) {
+            tapped[slot] = true;
+        }
+    }
+
+    /**
+     * Runs a single tick of the race
+     */
+    public void tick() {
+        tick++;
+        if (!racing) {
+            if (isFull() && ++finishedTicks >= restartDelayTicks) {
+                startRace();
+            }
+            return;
+        }
+
+        boolean finished = true;
+        for (int i = 0; i < worlds.length; i++) {
+            World world = worlds[i];
+            if (world.getState() == World.WorldState.GameOver) continue;
+            // the first tick taps every world into play at once
+            world.step(starting, touched[i] || tapped[i]);
+            world.getEvents().drain();
+            tapped[i] = false;
+            if (world.getState() != World.WorldState.GameOver) {
+                finished = false;
+            }
+        }
+        starting = false;
+        if (finished) {
+            racing = false;
+            finishedTicks = 0;
+        }
+    }
+
+    private void startRace() {
+        long seed = random.nextLong();
+        for (World world : worlds) {
+            world.restart(seed);
+        }
+        racing = true;
+        starting = true;
+    }
+
+    /**
+     * Quantizes the state of all worlds into {@link #getFields()}
+     */
+    public void capture() {
+        for (int i = 0; i < worlds.length; i++) {
+            RaceState.capture(worlds[i], fields, i * stride);
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the number of ticks the room ran
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int getSlots() {
+        return players.length;
+    }
+
+    /**
+     * @param slot the slot
+     * @return the player in the slot, null if free
+     */
+    public Connection getPlayer(int slot) {
+        return players[slot];
+    }
+
+    /**
+     * @return whether every slot was taken, players that left keep their slot
+     */
+    public boolean isFull() {
+        return joined == players.length;
+    }
+
+    /**
+     * @return the number of connected players
+     */
+    public int getConnected() {
+        return connected;
+    }
+
+    /**
+     * @return the state of the race as of the last {@link #capture()}, see {@link RaceState}
+     */
+    public int[] getFields() {
+        return fields;
+    }
+}
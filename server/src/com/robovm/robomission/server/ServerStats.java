@@ -0,0 +1,137 @@
+package com.robovm.robomission.server;
+
+/**
+ * Counters of a {@link GameServer}, summed over its shards.
+ * CPU times are measured per shard thread, so they hold up
+ * when the clients run on the same machine. The difference
+ * of two samples gives the rates over the time between them,
+ * see {@link #since(ServerStats)}.
+ */
+public class ServerStats {
+    private final int tickRate;
+    private final long time;
+    private int rooms;
+    private int clients;
+    private long ticks;
+    private long roomTicks;
+    private long tickCpuNanos;
+    private long busyCpuNanos;
+    private long bytesSent;
+    private long overruns;
+
+    /**
+     * @param tickRate the number of ticks per second of the server
+     */
+    public ServerStats(int tickRate) {
+        this(tickRate, System.nanoTime());
+    }
+
+    private ServerStats(int tickRate, long time) {
+        this.tickRate = tickRate;
+        this.time = time;
+    }
+
+    /**
+     * Adds the counters of a shard
+     * @param rooms the number of open rooms
+     * @param clients the number of connected clients
+     * @param ticks the number of ticks run
+     * @param roomTicks the sum of the rooms ticked in each tick
+     * @param tickCpuNanos the CPU time spent in ticks
+     * @param busyCpuNanos the CPU time spent in total
+     * @param bytesSent the number of bytes sent
+     * @param overruns the number of times ticks were dropped
+     */
+    public void add(int rooms, int clients, long ticks, long roomTicks, long tickCpuNanos, long busyCpuNanos, long bytesSent, long overruns) {
+        this.rooms += rooms;
+        this.clients += clients;
+        this.ticks += ticks;
+        this.roomTicks += roomTicks;
+        this.tickCpuNanos += tickCpuNanos;
+        this.busyCpuNanos += busyCpuNanos;
+        this.bytesSent += bytesSent;
+        this.overruns += overruns;
+    }
+
+    /**
+     * @param earlier stats sampled before these
+     * @return the counters accumulated since, with the rooms and clients of these stats
+     */
+    public ServerStats since(ServerStats earlier) {
+        ServerStats stats = new ServerStats(tickRate, time);
+        stats.add(rooms, clients, ticks - earlier.ticks, roomTicks - earlier.roomTicks,
+            tickCpuNanos - earlier.tickCpuNanos, busyCpuNanos - earlier.busyCpuNanos,
+            bytesSent - earlier.bytesSent, overruns - earlier.overruns);
+        return stats;
+    }
+
+    public int getRooms() {
+        return rooms;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    /**
+     * @return the number of shard ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * @return the CPU time a shard spent in a tick, simulating and
+     * sending states, in microseconds
+     */
+    public float getTickCpuMicros() {
+        return ticks == 0 ? 0 : tickCpuNanos / 1000f / ticks;
+    }
+
+    /**
+     * @return the CPU time a room costs per tick in microseconds,
+     * including reading its players' input
+     */
+    public float getRoomTickCpuMicros() {
+        return roomTicks == 0 ? 0 : busyCpuNanos / 1000f / roomTicks;
+    }
+
+    /**
+     * @return how many rooms a core could tick at the tick rate
+     */
+    public float getRoomsPerCore() {
+        float micros = getRoomTickCpuMicros();
+        return micros == 0 ? 0 : 1000000 / (micros * tickRate);
+    }
+
+    /**
+     * @return the number of bytes sent to clients
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return how often a shard fell too far behind and dropped ticks
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * @return the time the stats were sampled at, in nanoseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public String toString() {
+        return "rooms " + rooms + "  clients " + clients
+            + "  cpu/tick " + getTickCpuMicros() + "us"
+            + "  cpu/room-tick " + getRoomTickCpuMicros() + "us"
+            + "  rooms/core " + (int)getRoomsPerCore()
+            + "  sent " + bytesSent / 1024 + "kB"
+            + "  overruns " + overruns;
+    }
+}
@@ -0,0 +1,243 @@
+package com.robovm.robomission.server;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread running a share of the rooms and serving their
+ * players over a single non-blocking selector. Between
+ * ticks it reads input, at each tick it steps every room
+ * and sends the room's state to its players. Rooms never
+ * move between shards, so rooms and connections are only
+ * touched by their shard's thread, new connections are the
+ * only thing handed over from the acceptor.
+ *
+ * Ticks run at a fixed rate. A shard that falls behind
+ * catches up by ticking back to back, if it falls more than
+ * {@link #MAX_CATCH_UP_TICKS} behind it drops the missed
+ * ticks and counts an overrun.
+ */
+public class Shard implements Runnable {
+    public static final int MAX_CATCH_UP_TICKS = 5;
+
+    private final Selector selector;
+    private final int playersPerRoom;
+    private final int tickRate;
+    private final long tickNanos;
+    private final int sendInterval;
+    private final ConcurrentLinkedQueue<Connection> accepted = new ConcurrentLinkedQueue<Connection>();
+    private final Map<Integer, Room> roomsById = new HashMap<Integer, Room>();
+    private final List<Room> rooms = new ArrayList<Room>();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private volatile boolean running = true;
+
+    // Written by the shard's thread, read by the stats
+    private volatile int roomCount;
+    private volatile int clientCount;
+    private volatile long ticks;
+    private volatile long roomTicks;
+    private volatile long tickCpuNanos;
+    private volatile long busyCpuNanos;
+    private volatile long bytesSent;
+    private volatile long overruns;
+
+    /**
+     * @param playersPerRoom the number of players racing in a room
+     * @param tickRate the number of ticks per second
+     * @param sendInterval the number of ticks between states sent to the players
+     * @throws IOException if the selector can't be opened
+     */
+    public Shard(int playersPerRoom, int tickRate, int sendInterval) throws IOException {
+        this.selector = Selector.open();
+        this.playersPerRoom = playersPerRoom;
+        this.tickRate = tickRate;
+        this.tickNanos = 1000000000L / tickRate;
+        this.sendInterval = sendInterval;
+    }
+
+    /**
+     * Hands a new client to the shard, call from any thread
+     * @param connection the client
+     */
+    public void add(Connection connection) {
+        accepted.add(connection);
+        selector.wakeup();
+    }
+
+    /**
+     * Stops the shard and closes its connections
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime();
+        long lastCpu = cpuTime();
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, wait / 1000000));
+                } else {
+                    selector.selectNow();
+                }
+                register();
+                handleKeys();
+
+                long now = System.nanoTime();
+                if (now - nextTick < 0) continue;
+                if (now - nextTick > MAX_CATCH_UP_TICKS * tickNanos) {
+                    nextTick = now;
+                    overruns++;
+                }
+                nextTick += tickNanos;
+
+                long tickStart = cpuTime();
+                tick();
+                long tickEnd = cpuTime();
+                tickCpuNanos += tickEnd - tickStart;
+                busyCpuNanos += tickEnd - lastCpu;
+                lastCpu = tickEnd;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                ((Connection)key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // nothing we can do
+            }
+        }
+    }
+
+    private long cpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private void register() {
+        Connection connection;
+        while ((connection = accepted.poll()) != null) {
+            Room room = roomsById.get(connection.getRoomId());
+            if (room == null) {
+                room = new Room(connection.getRoomId(), playersPerRoom, tickRate);
+                roomsById.put(room.getId(), room);
+                rooms.add(room);
+            }
+            int slot = room.join(connection);
+            // counted as long as it holds a slot, so every
+            // leave below is matched by a join
+            if (slot >= 0) {
+                clientCount++;
+            }
+            try {
+                if (slot < 0) throw new IOException("Room " + room.getId() + " is full");
+                SelectionKey key = connection.getChannel().register(selector, SelectionKey.OP_READ, connection);
+                connection.attach(key, room, slot);
+                connection.sendWelcome(room.getSlots(), tickRate, sendInterval);
+                bytesSent += connection.flush();
+            } catch (IOException e) {
+                if (slot >= 0 && connection.getRoom() == null) {
+                    // failed before it was attached, disconnect()
+                    // doesn't know its room
+                    room.leave(slot);
+                    clientCount--;
+                }
+                disconnect(connection);
+            }
+        }
+        roomCount = rooms.size();
+    }
+
+    private void handleKeys() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Connection connection = (Connection)key.attachment();
+            try {
+                if (key.isReadable() && !connection.read()) {
+                    disconnect(connection);
+                    continue;
+                }
+                if (key.isValid() && key.isWritable()) {
+                    bytesSent += connection.flush();
+                }
+            } catch (IOException e) {
+                disconnect(connection);
+            }
+        }
+    }
+
+    private void tick() {
+        long sent = 0;
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            room.tick();
+            if (room.getTick() % sendInterval != 0) continue;
+
+            // Capture once, encode per player against
+            // what that player got last
+            room.capture();
+            int[] fields = room.getFields();
+            int checksum = DeltaCodec.checksum(fields, fields.length);
+            for (int slot = 0; slot < room.getSlots(); slot++) {
+                Connection connection = room.getPlayer(slot);
+                if (connection == null) continue;
+                try {
+                    if (!connection.sendState(room.getTick(), fields, fields.length, checksum)) {
+                        throw new IOException("Client too slow");
+                    }
+                    sent += connection.flush();
+                } catch (IOException e) {
+                    disconnect(connection);
+                }
+            }
+        }
+
+        // Rooms whose players all came and left are closed
+        for (int i = rooms.size() - 1; i >= 0; i--) {
+            Room room = rooms.get(i);
+            if (room.isFull() && room.getConnected() == 0) {
+                rooms.remove(i);
+                roomsById.remove(room.getId());
+            }
+        }
+
+        roomTicks += rooms.size();
+        bytesSent += sent;
+        roomCount = rooms.size();
+        ticks++;
+    }
+
+    private void disconnect(Connection connection) {
+        connection.close();
+        Room room = connection.getRoom();
+        if (room != null && room.getPlayer(connection.getSlot()) == connection) {
+            room.leave(connection.getSlot());
+            clientCount--;
+        }
+    }
+
+    /**
+     * Adds the shard's counters to the stats of the server
+     * @param stats the stats to add to
+     */
+    public void addTo(ServerStats stats) {
+        stats.add(roomCount, clientCount, ticks, roomTicks, tickCpuNanos, busyCpuNanos, bytesSent, overruns);
+    }
+}
@@ -8,10 +8,14 @@ import com.badlogic.gdx.backends.iosrobovm.IOSApplicationConfiguration;
 import com.robovm.robomission.RoboMission;
 
 public class TVOSLauncher extends IOSApplication.Delegate {
+    private static final int TV_IDLE_FRAMES_PER_SECOND = 30;
+
     @Override
     protected IOSApplication createApplication() {
         IOSApplicationConfiguration config = new IOSApplicationConfiguration();
-        return new IOSApplication(new RoboMission(), config);
+        // the Apple TV runs off the mains, so we only throttle
+        // moderately to keep the GPU and fan quiet on menus
+        return new IOSApplication(new RoboMission(new FramePacer(TV_IDLE_FRAMES_PER_SECOND)), config);
     }
 
     public static void main(String[] argv) {